@@ -17,6 +17,11 @@ async function proxyToSpring(req, res, path) {
             method: req.method,
             headers: { 'Content-Type': 'application/json' },
         };
+        const idempotencyKey = req.get('Idempotency-Key');
+        if (idempotencyKey) init.headers['Idempotency-Key'] = idempotencyKey;
+        // Spring rate-limits per client; without this every browser would share the proxy's address.
+        // Always the caller's address: a browser-supplied id could be changed on every request.
+        init.headers['X-Client-Id'] = req.ip;
         if (req.method !== 'GET' && req.method !== 'HEAD') {
             init.body = JSON.stringify(req.body ?? {});
         }
@@ -25,6 +30,12 @@ async function proxyToSpring(req, res, path) {
         const text = await r.text();
 
         res.status(r.status);
+        for (const header of ['X-Next-Cursor', 'X-Next-From']) {
+            const value = r.headers.get(header);
+            if (value) res.set(header, value);
+        }
+        const retryAfter = r.headers.get('Retry-After');
+        if (retryAfter) res.set('Retry-After', retryAfter);
         if (!text) return res.end();
         try { return res.json(JSON.parse(text)); }
         catch { return res.send(text); }
@@ -36,23 +47,36 @@ async function proxyToSpring(req, res, path) {
 }
 
 app.get('/api/v1/tickets', (req, res) =>
-    proxyToSpring(req, res, '/api/v1/tickets')
+    proxyToSpring(req, res, req.originalUrl)
 );
 
-app.get('/api/v1/tickets/:id', (req, res) =>
-    proxyToSpring(req, res, `/api/v1/tickets/${req.params.id}`)
+app.get('/api/v1/tickets/history', (req, res) =>
+    proxyToSpring(req, res, req.originalUrl)
+);
+
+app.get('/api/v1/tickets/stats', (req, res) =>
+    proxyToSpring(req, res, req.originalUrl)
 );
 
 app.get('/api/v1/tickets/called', (req, res) =>
-    proxyToSpring(req, res, '/api/v1/tickets/called')
+    proxyToSpring(req, res, req.originalUrl)
+);
+
+// Literal sub-paths go above this line: Express matches in order and /:id would swallow them.
+app.get('/api/v1/tickets/:id/position', (req, res) =>
+    proxyToSpring(req, res, `/api/v1/tickets/${req.params.id}/position`)
+);
+
+app.get('/api/v1/tickets/:id', (req, res) =>
+    proxyToSpring(req, res, `/api/v1/tickets/${req.params.id}`)
 );
 
 app.post('/api/v1/tickets/create', (req, res) =>
-    proxyToSpring(req, res, '/api/v1/tickets/create')
+    proxyToSpring(req, res, req.originalUrl)
 );
 
 app.put('/api/v1/tickets/call', (req, res) =>
-    proxyToSpring(req, res, `/api/v1/tickets/call`)
+    proxyToSpring(req, res, req.originalUrl)
 );
 
 const server = http.createServer(app);
@@ -67,28 +91,13 @@ io.on('connection', (socket) => {
         socket.join(room)
     })
 
-    socket.on('draw-event', async (payload) => {
-        console.log('draw-event', payload)
-        const { room } = payload
-
-        try {
-            const url = `${SPRING_BASE}/api/v1/tickets/create`
-            const r = await fetch(url, {
-                method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
-            })
-
-            if (!r.ok) {
-                const errTxt = await r.text()
-                console.warn('Spring rejected draw-event:', r.status, errTxt)
-                socket.emit('draw-error', { status: r.status, body: errTxt })
-            } else {
-                io.to(room).emit('ticket-update', { message: 'New ticket created' })
-            }
-
-        } catch (e) {
-            console.error('Error forwarding draw-event to Spring:', e)
-            socket.emit('draw-error', { status: 502, body: 'Cannot reach Spring' })
+    // Spring sends one JSON string per flush: { [room]: { resync, deltas: [{ type, id, queue, counter }] } }
+    socket.on('ticket-deltas', (payload) => {
+        let rooms
+        try { rooms = typeof payload === 'string' ? JSON.parse(payload) : payload }
+        catch (e) { return console.error('Malformed ticket-deltas payload:', e) }
+        for (const [room, batch] of Object.entries(rooms ?? {})) {
+            io.to(room).emit('ticket-deltas', batch)
         }
     })
 })
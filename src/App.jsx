@@ -4,6 +4,26 @@ import { createStompClient, subscribeToTickets } from './lib/stompClient.js'
 
 const API_BASE = import.meta.env.VITE_API_BASE ?? 'http://localhost:8080'
 const IO_BASE  = import.meta.env.VITE_IO_BASE  ?? 'http://localhost:3001'
+const RETRIES = 3
+
+// One Idempotency-Key per user action: retries after a network error, 409 (still running), 429 or 5xx reuse it,
+// so the server replays the first result instead of creating or calling another ticket.
+const sendOnce = async (url, method) => {
+    const key = crypto.randomUUID()
+    for (let attempt = 0; ; attempt++) {
+        try {
+            const response = await fetch(url, {
+                method,
+                headers: { 'Content-Type': 'application/json', 'Idempotency-Key': key }
+            })
+            const retryable = response.status === 409 || response.status === 429 || response.status >= 500
+            if (!retryable || attempt >= RETRIES) return response
+        } catch (error) {
+            if (attempt >= RETRIES) throw error
+        }
+        await new Promise(resolve => setTimeout(resolve, 250 * 2 ** attempt))
+    }
+}
 
 export default function App() {
     const [tech, setTech] = useState('socketio')
@@ -45,10 +65,7 @@ export default function App() {
         setLoading(true)
         try {
             const base = tech === 'stomp' ? API_BASE : IO_BASE
-            await fetch(`${base}/api/v1/tickets/create`, {
-                method: 'POST',
-                headers: { 'Content-Type': 'application/json' }
-            })
+            await sendOnce(`${base}/api/v1/tickets/create`, 'POST')
             await fetchTickets()
             await fetchCalledTicket()
         } catch (error) {
@@ -62,10 +79,7 @@ export default function App() {
         setLoading(true)
         try {
             const base = tech === 'stomp' ? API_BASE : IO_BASE
-            await fetch(`${base}/api/v1/tickets/call`, {
-                method: 'PUT',
-                headers: { 'Content-Type': 'application/json' }
-            })
+            await sendOnce(`${base}/api/v1/tickets/call`, 'PUT')
             await fetchTickets()
             await fetchCalledTicket()
         } catch (error) {
@@ -75,6 +89,23 @@ export default function App() {
         }
     }
 
+    // Socket.IO deltas are coalesced per ticket, so a ticket may first show up already CALLED.
+    const upsert = (id, queue, changes) =>
+        setTickets(prev => prev.some(t => t.id === id)
+            ? prev.map(t => t.id === id ? { ...t, ...changes } : t)
+            : [...prev, { id, queue, ...changes }])
+
+    const applyDelta = ({ type, id, queue, counter }) => {
+        if (type === 'created') {
+            setTickets(prev => prev.some(t => t.id === id) ? prev : [...prev, { id, queue, state: 'CREATED' }])
+        } else if (type === 'called') {
+            upsert(id, queue, { state: 'CALLED', counter })
+            setCalledTicket({ id, queue, counter, state: 'CALLED' })
+        } else if (type === 'completed') {
+            upsert(id, queue, { state: 'COMPLETED' })
+        }
+    }
+
     useEffect(() => {
         fetchTickets()
         fetchCalledTicket()
@@ -98,8 +129,12 @@ export default function App() {
                 s.emit('join-room', room)
             })
 
-            s.on('ticket-update', (upd) => {
-                console.log('Ticket update received:', upd)
+            s.on('ticket-deltas', ({ resync, deltas = [] }) => {
+                if (resync) {
+                    fetchTickets()
+                    fetchCalledTicket()
+                }
+                deltas.forEach(applyDelta)
             })
 
             s.on('draw-error', (err) => {
@@ -111,8 +146,8 @@ export default function App() {
 
             client.onConnect = () => {
                 console.log('STOMP connected')
-                unsubRef.current = subscribeToTickets(client, (upd) => {
-                    console.log('STOMP ticket update received:', upd)
+                unsubRef.current = subscribeToTickets(client, (delta) => {
+                    applyDelta(delta)
                 })
             }
 
@@ -0,0 +1,35 @@
+package edu.eci.arsw.tickets.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs every benchmark once per thread count and writes one JMH JSON result
+ * file per run: {@code <outputDir>/result-t<threads>.json}.
+ * Usage: {@code BenchmarkMain <outputDir> [includeRegex] [threads,...]}
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        File outputDir = new File(args.length > 0 ? args[0] : "target/jmh");
+        String include = args.length > 1 ? args[1] : ".*Benchmark.*";
+        String threadCounts = args.length > 2 ? args[2] : "1,4,16";
+        outputDir.mkdirs();
+
+        for (String count : threadCounts.split(",")) {
+            int threads = Integer.parseInt(count.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(outputDir, "result-t" + threads + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package edu.eci.arsw.tickets.bench;
+
+import edu.eci.arsw.tickets.model.TicketPriority;
+import edu.eci.arsw.tickets.services.NextTicketPolicy;
+import edu.eci.arsw.tickets.services.PriorityAgingPolicy;
+import edu.eci.arsw.tickets.services.TicketHeap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of picking the next ticket under the priority policy with a large
+ * waiting line: the indexed heap used by TicketScheduler against a linear
+ * scan over the same tickets. Each operation calls one ticket and issues a new
+ * one so the line stays at {@code waiting} tickets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NextTicketSelectionBenchmark {
+
+    private static final TicketPriority[] PRIORITIES = TicketPriority.values();
+
+    @Param({"100000"})
+    public int waiting;
+
+    private final NextTicketPolicy policy = new PriorityAgingPolicy();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private TicketHeap heap;
+    private long[] ids;
+    private long[] ranks;
+    private long nextId;
+    private long clock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        heap = new TicketHeap();
+        ids = new long[waiting];
+        ranks = new long[waiting];
+        for (int i = 0; i < waiting; i++) {
+            long id = ++nextId;
+            long rank = nextRank(id);
+            heap.add(id, rank);
+            ids[i] = id;
+            ranks[i] = rank;
+        }
+    }
+
+    private long nextRank(long id) {
+        clock += random.nextInt(1_000);
+        TicketPriority priority = random.nextInt(10) == 0 ? PRIORITIES[random.nextInt(PRIORITIES.length)] : TicketPriority.NORMAL;
+        return policy.rank(id, priority, clock);
+    }
+
+    @Benchmark
+    public long heap() {
+        long called = heap.poll();
+        long id = ++nextId;
+        heap.add(id, nextRank(id));
+        return called;
+    }
+
+    @Benchmark
+    public long linearScan() {
+        int best = 0;
+        for (int i = 1; i < waiting; i++) {
+            if (ranks[i] < ranks[best] || ranks[i] == ranks[best] && ids[i] < ids[best]) best = i;
+        }
+        long called = ids[best];
+        ids[best] = ++nextId;
+        ranks[best] = nextRank(ids[best]);
+        return called;
+    }
+}
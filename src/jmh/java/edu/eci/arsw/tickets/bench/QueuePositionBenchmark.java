@@ -0,0 +1,95 @@
+package edu.eci.arsw.tickets.bench;
+
+import edu.eci.arsw.tickets.model.TicketPriority;
+import edu.eci.arsw.tickets.services.NextTicketPolicy;
+import edu.eci.arsw.tickets.services.PriorityAgingPolicy;
+import edu.eci.arsw.tickets.services.TicketRankIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of answering "how many tickets are ahead of mine" with a large waiting
+ * line under the priority policy: the rank index behind QueuePositions against
+ * counting over the whole line, which is what a client does with the ticket
+ * list. Lookups pick a random waiting ticket; {@code churn} also calls one
+ * ticket and issues a new one per operation, as a busy queue does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueuePositionBenchmark {
+
+    private static final TicketPriority[] PRIORITIES = TicketPriority.values();
+
+    @Param({"1000", "100000"})
+    public int waiting;
+
+    private final NextTicketPolicy policy = new PriorityAgingPolicy();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private TicketRankIndex index;
+    private long[] ids;
+    private long[] ranks;
+    private long nextId;
+    private long clock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new TicketRankIndex();
+        ids = new long[waiting];
+        ranks = new long[waiting];
+        for (int i = 0; i < waiting; i++) {
+            long id = ++nextId;
+            long rank = nextRank(id);
+            index.add(id, rank);
+            ids[i] = id;
+            ranks[i] = rank;
+        }
+    }
+
+    private long nextRank(long id) {
+        clock += random.nextInt(1_000);
+        TicketPriority priority = random.nextInt(10) == 0 ? PRIORITIES[random.nextInt(PRIORITIES.length)] : TicketPriority.NORMAL;
+        return policy.rank(id, priority, clock);
+    }
+
+    @Benchmark
+    public int rankIndex() {
+        return index.ahead(ids[random.nextInt(waiting)]);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int mine = random.nextInt(waiting);
+        int ahead = 0;
+        for (int i = 0; i < waiting; i++) {
+            if (ranks[i] < ranks[mine] || ranks[i] == ranks[mine] && ids[i] < ids[mine]) ahead++;
+        }
+        return ahead;
+    }
+
+    @Benchmark
+    public int rankIndexChurn() {
+        int slot = random.nextInt(waiting);
+        index.remove(ids[slot]);
+        ids[slot] = ++nextId;
+        ranks[slot] = nextRank(ids[slot]);
+        index.add(ids[slot], ranks[slot]);
+        return index.ahead(ids[random.nextInt(waiting)]);
+    }
+}
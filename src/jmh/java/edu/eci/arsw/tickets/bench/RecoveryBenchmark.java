@@ -0,0 +1,79 @@
+package edu.eci.arsw.tickets.bench;
+
+import edu.eci.arsw.tickets.EmbeddedDatabase;
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.persistence.TicketNotFoundException;
+import edu.eci.arsw.tickets.persistence.TicketPersistenceException;
+import edu.eci.arsw.tickets.services.TicketServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static edu.eci.arsw.tickets.EmbeddedDatabase.QUEUE;
+
+/**
+ * Restart time of the in-memory queue: "hotqueue" rebuilds it with a scan of
+ * the tickets table, "eventlog" from the latest snapshot plus the events
+ * written after it. Each iteration is one full application boot; the shared
+ * Spring startup cost is the same for both profiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecoveryBenchmark {
+
+    @Param({"hotqueue", "eventlog"})
+    public String persistence;
+
+    @Param({"100000", "1000000"})
+    public int tableSize;
+
+    // Transitions after the last snapshot, replayed from the log on restart.
+    @Param({"10000"})
+    public int tail;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws TicketPersistenceException {
+        // The first eventlog boot falls back to a table scan and takes the snapshot.
+        try (ConfigurableApplicationContext seeded = EmbeddedDatabase.bootWithTickets(tableSize, persistence)) {
+            TicketServices services = seeded.getBean(TicketServices.class);
+            for (int i = 0; i < tail / 2; i++) {
+                services.addNewTicket(new Ticket(QUEUE));
+                try {
+                    services.callNextTicket(QUEUE, "bench");
+                } catch (TicketNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext restart() {
+        context = EmbeddedDatabase.boot(persistence);
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        if (context != null) context.close();
+    }
+}
@@ -0,0 +1,94 @@
+package edu.eci.arsw.tickets.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.eci.arsw.tickets.EmbeddedDatabase;
+import edu.eci.arsw.tickets.controllers.PackedTicketWriter;
+import edu.eci.arsw.tickets.controllers.TicketAPIController.ApiResponse;
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization CPU of the ticket list as the JSON ApiResponse body against
+ * the packed format, written to a byte-counting sink. Bytes on the wire for
+ * each encoding are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    @Param({"200", "10000"})
+    public int tickets;
+
+    // Configured like the Spring Boot mapper: dates as ISO strings.
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private List<Ticket> list;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Field id = Ticket.class.getDeclaredField("id");
+        id.setAccessible(true);
+        list = new ArrayList<>(tickets);
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = new Ticket(EmbeddedDatabase.QUEUE);
+            id.set(ticket, 1_000_000L + i);
+            ticket.setNumber(i + 1);
+            if (i < tickets * 9 / 10) ticket.setState(TicketState.COMPLETED);
+            list.add(ticket);
+        }
+        System.out.printf("%n%d tickets: json=%d bytes, packed=%d bytes%n", tickets, json().count, packed().count);
+    }
+
+    @Benchmark
+    public CountingStream json() throws IOException {
+        CountingStream out = new CountingStream();
+        mapper.writeValue(out, new ApiResponse<>(200, "execute ok", list));
+        return out;
+    }
+
+    @Benchmark
+    public CountingStream packed() throws IOException {
+        CountingStream out = new CountingStream();
+        PackedTicketWriter writer = new PackedTicketWriter(out);
+        for (Ticket ticket : list) writer.write(ticket.getId(), ticket.getState());
+        return out;
+    }
+
+    public static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
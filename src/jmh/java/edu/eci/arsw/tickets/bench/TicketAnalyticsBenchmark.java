@@ -0,0 +1,63 @@
+package edu.eci.arsw.tickets.bench;
+
+import edu.eci.arsw.tickets.analytics.TicketAnalytics;
+import edu.eci.arsw.tickets.events.TicketEvent;
+import edu.eci.arsw.tickets.model.TicketPriority;
+import edu.eci.arsw.tickets.model.TicketState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static edu.eci.arsw.tickets.EmbeddedDatabase.QUEUE;
+
+/**
+ * Cost of feeding a call into TicketAnalytics and of answering the stats
+ * query over a full 24-hour window, one day of calls already recorded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketAnalyticsBenchmark {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final TicketAnalytics analytics = new TicketAnalytics(24);
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        for (long at = now - 23 * HOUR; at < now; at += 500) analytics.onTicketEvent(called(at));
+    }
+
+    private TicketEvent called(long at) {
+        long waited = ThreadLocalRandom.current().nextLong(1_000, 3_600_000);
+        return new TicketEvent(TicketEvent.Type.TICKET_CALLED, ids.incrementAndGet(), QUEUE, TicketState.CALLED,
+                "bench", TicketPriority.NORMAL, at - waited, at, false);
+    }
+
+    @Benchmark
+    public void record() {
+        analytics.onTicketEvent(called(System.currentTimeMillis()));
+    }
+
+    @Benchmark
+    public TicketAnalytics.QueueStats stats() {
+        return analytics.stats(QUEUE, 24);
+    }
+}
@@ -0,0 +1,93 @@
+package edu.eci.arsw.tickets.bench;
+
+import edu.eci.arsw.tickets.EmbeddedDatabase;
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+import edu.eci.arsw.tickets.persistence.TicketNotFoundException;
+import edu.eci.arsw.tickets.persistence.TicketPersistenceException;
+import edu.eci.arsw.tickets.services.TicketServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static edu.eci.arsw.tickets.EmbeddedDatabase.QUEUE;
+
+/**
+ * Ticket lifecycle hot paths through TicketServices against every
+ * TicketPersistence implementation ("default" is PostgresTicketPersistence).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketLifecycleBenchmark {
+
+    @Param({"default", "hotqueue", "eventlog"})
+    public String persistence;
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private TicketServices services;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = "default".equals(persistence)
+                ? EmbeddedDatabase.bootWithTickets(tableSize)
+                : EmbeddedDatabase.bootWithTickets(tableSize, persistence);
+        services = context.getBean(TicketServices.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void addNewTicket() throws TicketPersistenceException {
+        services.addNewTicket(new Ticket(QUEUE));
+    }
+
+    // Steady state at a counter: one ticket issued for every ticket called.
+    @Benchmark
+    public Ticket createAndCallNext() throws TicketPersistenceException {
+        services.addNewTicket(new Ticket(QUEUE));
+        try {
+            return services.callNextTicket(QUEUE, "bench");
+        } catch (TicketNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Ticket getCalledTicket() throws TicketNotFoundException {
+        return services.getCalledTicket(QUEUE);
+    }
+
+    @Benchmark
+    public Object getTicketsPage() {
+        return services.getTickets(QUEUE, TicketState.CREATED, 0, 200);
+    }
+
+    @Benchmark
+    public void streamAllTickets(Blackhole blackhole) {
+        services.forEachTicket(QUEUE, null, 0, blackhole::consume);
+    }
+}
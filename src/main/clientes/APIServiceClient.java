@@ -2,35 +2,264 @@ package edu.eci.arsw.tickets;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Load generator for /api/v1/tickets.
+ *
+ * <pre>
+ * java src/main/clientes/APIServiceClient.java [--base http://localhost:8080] [--queue HOSPITAL]
+ *      [--mode closed|open] [--concurrency 64] [--rate 500] [--duration 60] [--warmup 10]
+ *      [--mix create=10,call=5,called=70,list=15]
+ * </pre>
+ *
+ * Closed loop: {@code concurrency} virtual threads issue requests back to back; when a
+ * {@code rate} is given each one is paced to rate/concurrency and stalls are back-filled
+ * HdrHistogram-style (coordinated-omission correction). Open loop: requests are started
+ * at a fixed arrival rate regardless of responses and latency is measured from the
+ * intended start time, so queueing delay is never omitted.
+ */
 public class APIServiceClient {
-    private static HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private static HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
 
-    public String getInfo(){
-        String url = "http://localhost:8080/api/info";
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).build();
+    enum Operation { CREATE, CALL, CALLED, LIST }
 
+    private final String base;
+    private final String queue;
+    private final Operation[] mix;
+    private final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final AtomicLongArray statuses = new AtomicLongArray(600);
+    private volatile boolean recording;
+
+    public APIServiceClient(String base, String queue, Operation[] mix) {
+        this.base = base;
+        this.queue = URLEncoder.encode(queue, StandardCharsets.UTF_8);
+        this.mix = mix;
+        for (Operation op : Operation.values()) histograms.put(op, new LatencyHistogram());
+    }
+
+    private HttpRequest request(Operation op) {
+        String path = "/api/v1/tickets";
+        HttpRequest.Builder builder = switch (op) {
+            case CREATE -> HttpRequest.newBuilder(URI.create(base + path + "/create?queue=" + queue))
+                    .POST(HttpRequest.BodyPublishers.noBody());
+            case CALL -> HttpRequest.newBuilder(URI.create(base + path + "/call?queue=" + queue + "&counter=load"))
+                    .PUT(HttpRequest.BodyPublishers.noBody());
+            case CALLED -> HttpRequest.newBuilder(URI.create(base + path + "/called?queue=" + queue)).GET();
+            case LIST -> HttpRequest.newBuilder(URI.create(base + path + "?state=CREATED&limit=50&queue=" + queue)).GET();
+        };
+        return builder.timeout(Duration.ofSeconds(30)).build();
+    }
+
+    private Operation nextOperation() {
+        return mix[ThreadLocalRandom.current().nextInt(mix.length)];
+    }
+
+    // Executes one operation and returns its service time in microseconds.
+    private long execute(Operation op) {
+        long start = System.nanoTime();
+        int status;
         try {
-            HttpResponse<String> response = client.send(request,HttpResponse.BodyHandlers.ofString());
-            return response.body();
+            status = client.send(request(op), HttpResponse.BodyHandlers.discarding()).statusCode();
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            status = 599;
         } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            Thread.currentThread().interrupt();
+            status = 599;
         }
+        if (recording) statuses.incrementAndGet(Math.min(status, 599));
+        return (System.nanoTime() - start) / 1_000;
+    }
+
+    private void record(Operation op, long latencyMicros, long expectedIntervalMicros) {
+        if (!recording) return;
+        histograms.get(op).recordCorrected(latencyMicros, expectedIntervalMicros);
+        total.recordCorrected(latencyMicros, expectedIntervalMicros);
     }
 
-    public static void main(String[] args){
-        for (int i = 0; i<100; i++){
-            Thread thread = new Thread(() -> {
-                APIServiceClient client = new APIServiceClient();
-                System.out.println(client.getInfo());
-            });
-            thread.start();
+    void runClosedLoop(int concurrency, double rate, long endNanos) throws InterruptedException {
+        long intervalNanos = rate > 0 ? (long) (concurrency * 1e9 / rate) : 0;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    long next = System.nanoTime();
+                    while (System.nanoTime() < endNanos) {
+                        Operation op = nextOperation();
+                        record(op, execute(op), intervalNanos / 1_000);
+                        if (intervalNanos > 0) {
+                            next += intervalNanos;
+                            long wait = next - System.nanoTime();
+                            if (wait > 0) LockSupport.parkNanos(wait);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    void runOpenLoop(double rate, long endNanos) throws InterruptedException {
+        long intervalNanos = (long) (1e9 / rate);
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * intervalNanos;
+                if (intended >= endNanos) break;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                requests.submit(() -> {
+                    Operation op = nextOperation();
+                    execute(op);
+                    record(op, (System.nanoTime() - intended) / 1_000, 0);
+                });
+            }
+        }
+    }
+
+    void report(double seconds) {
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "op", "count", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "p99.99(ms)", "max(ms)");
+        for (Operation op : Operation.values()) printRow(op.name().toLowerCase(), histograms.get(op), seconds);
+        printRow("total", total, seconds);
+        StringBuilder codes = new StringBuilder("status codes:");
+        for (int status = 0; status < statuses.length(); status++) {
+            long count = statuses.get(status);
+            if (count > 0) codes.append(' ').append(status == 599 ? "error" : status).append('=').append(count);
+        }
+        System.out.println(codes);
+    }
+
+    private static void printRow(String name, LatencyHistogram histogram, double seconds) {
+        long count = histogram.count();
+        if (count == 0) return;
+        System.out.printf("%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", name, count, count / seconds,
+                histogram.percentile(50) / 1e3, histogram.percentile(90) / 1e3, histogram.percentile(99) / 1e3,
+                histogram.percentile(99.9) / 1e3, histogram.percentile(99.99) / 1e3, histogram.max() / 1e3);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "base", "http://localhost:8080", "queue", "HOSPITAL", "mode", "closed",
+                "concurrency", "64", "rate", "0", "duration", "60", "warmup", "10",
+                "mix", "create=10,call=5,called=70,list=15"));
+        for (int i = 0; i + 1 < args.length; i += 2) options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+
+        boolean open = "open".equals(options.get("mode"));
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        double rate = Double.parseDouble(options.get("rate"));
+        if (open && rate <= 0) throw new IllegalArgumentException("--rate is required in open mode");
+
+        APIServiceClient generator = new APIServiceClient(options.get("base"), options.get("queue"),
+                parseMix(options.get("mix")));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+        long start = System.nanoTime();
+        long end = start + warmupNanos + durationNanos;
+
+        Thread recorder = Thread.ofVirtual().start(() -> {
+            LockSupport.parkNanos(warmupNanos);
+            generator.recording = true;
+        });
+        System.out.printf("mode=%s concurrency=%d rate=%.0f warmup=%ss duration=%ss mix=%s%n",
+                open ? "open" : "closed", concurrency, rate, options.get("warmup"), options.get("duration"),
+                options.get("mix"));
+        if (open) generator.runOpenLoop(rate, end);
+        else generator.runClosedLoop(concurrency, rate, end);
+        recorder.join();
+        generator.report(durationNanos / 1e9);
+    }
+
+    private static Operation[] parseMix(String spec) {
+        List<Operation> weighted = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] entry = part.split("=");
+            Operation op = Operation.valueOf(entry[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(entry[1].trim()); i > 0; i--) weighted.add(op);
+        }
+        return weighted.toArray(Operation[]::new);
+    }
+
+    /**
+     * Lock-free log-linear histogram of microsecond values with ~1% precision
+     * (128 linear sub-buckets per power of two), in the spirit of HdrHistogram.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 7;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int HALF = SUB_BUCKETS / 2;
+        private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            value = Math.max(0, value);
+            counts.incrementAndGet(index(value));
+            total.incrementAndGet();
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        // Back-fills the samples a stalled closed-loop caller could not send (HdrHistogram recordValueWithExpectedInterval).
+        void recordCorrected(long value, long expectedInterval) {
+            requests.incrementAndGet();
+            record(value);
+            if (expectedInterval <= 0) return;
+            for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+                record(missing);
+            }
+        }
+
+        // Requests actually sent; back-filled samples only weigh on the percentiles.
+        long count() {
+            return requests.get();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        long percentile(double percentile) {
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total.get()));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= target) return Math.min(highestValue(i), max.get());
+            }
+            return max.get();
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+            int sub = (int) (value >>> shift) - HALF;
+            return SUB_BUCKETS + (shift - 1) * HALF + sub;
+        }
+
+        private static long highestValue(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int shift = (index - SUB_BUCKETS) / HALF + 1;
+            long sub = (index - SUB_BUCKETS) % HALF + HALF;
+            return ((sub + 1) << shift) - 1;
         }
     }
 }
@@ -0,0 +1,108 @@
+package edu.eci.arsw.tickets;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time-to-first-request of the service: starts the given command, polls the URL until it
+ * answers with any HTTP status and stops the command again, {@code runs} times.
+ *
+ * <pre>
+ * java src/main/clientes/StartupTimer.java [--url http://localhost:8080/api/v1/tickets/called]
+ *      [--runs 5] [--timeout 180] -- &lt;command to start the service...&gt;
+ * </pre>
+ *
+ * Also reports Spring's own "Started ... in X seconds" line when the command prints it.
+ * Compare the same command with and without the faststart profile / AOT image.
+ */
+public class StartupTimer {
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080/api/v1/tickets/called";
+        int runs = 5;
+        long timeoutSeconds = 180;
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            System.err.println("Usage: StartupTimer [--url URL] [--runs N] [--timeout S] -- command...");
+            System.exit(2);
+        }
+        for (int i = 0; i < separator; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--runs" -> runs = Integer.parseInt(args[i + 1]);
+                case "--timeout" -> timeoutSeconds = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        List<String> command = List.of(Arrays.copyOfRange(args, separator + 1, args.length));
+
+        long[] firstRequest = new long[runs];
+        double[] started = new double[runs];
+        for (int run = 0; run < runs; run++) {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            long start = System.nanoTime();
+            double[] springStarted = {Double.NaN};
+            Thread reader = Thread.ofVirtual().start(() -> readOutput(process, springStarted));
+            try {
+                firstRequest[run] = awaitFirstResponse(url, start, TimeUnit.SECONDS.toNanos(timeoutSeconds));
+            } finally {
+                process.descendants().forEach(ProcessHandle::destroy);
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+                reader.join(5_000);
+            }
+            started[run] = springStarted[0];
+            System.out.printf("run %d: first response after %d ms, Spring reported %s s%n", run + 1,
+                    firstRequest[run], Double.isNaN(started[run]) ? "-" : started[run]);
+        }
+
+        Arrays.sort(firstRequest);
+        System.out.printf("%ntime to first request over %d runs: min %d ms, median %d ms, max %d ms%n",
+                runs, firstRequest[0], firstRequest[runs / 2], firstRequest[runs - 1]);
+        double[] reported = Arrays.stream(started).filter(s -> !Double.isNaN(s)).sorted().toArray();
+        if (reported.length > 0) {
+            System.out.printf("Spring 'Started in': min %.3f s, median %.3f s, max %.3f s%n",
+                    reported[0], reported[reported.length / 2], reported[reported.length - 1]);
+        }
+    }
+
+    // Milliseconds from start until the URL answers; connection errors mean the server is not up yet.
+    private static long awaitFirstResponse(String url, long start, long timeoutNanos) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).GET().build();
+        while (System.nanoTime() - start < timeoutNanos) {
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            } catch (IOException e) {
+                Thread.sleep(20);
+            }
+        }
+        throw new IllegalStateException("No response from " + url + " within the timeout");
+    }
+
+    private static void readOutput(Process process, double[] springStarted) {
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            for (String line; (line = out.readLine()) != null; ) {
+                Matcher matcher = STARTED.matcher(line);
+                if (matcher.find()) springStarted[0] = Double.parseDouble(matcher.group(1));
+            }
+        } catch (IOException ignored) {
+            // Process killed.
+        }
+    }
+}
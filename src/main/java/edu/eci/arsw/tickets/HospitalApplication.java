@@ -2,8 +2,10 @@ package edu.eci.arsw.tickets;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class HospitalApplication {
     public static void main(String[] args) {
         SpringApplication.run(HospitalApplication.class, args);
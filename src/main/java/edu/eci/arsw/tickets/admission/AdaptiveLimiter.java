@@ -0,0 +1,114 @@
+package edu.eci.arsw.tickets.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows latency, in the style of the Vegas and
+ * gradient limiters: the limit shrinks when the recent response time rises
+ * above the uncongested baseline (work is queueing in the database) and grows
+ * by about sqrt(limit) while latency stays near the baseline and the limit is
+ * actually in use. The baseline is the lowest response time seen, drifting
+ * slowly up so a lasting change in the database is eventually accepted.
+ * Callers over the limit wait in a bounded queue for at most the given time.
+ */
+final class AdaptiveLimiter {
+
+    // Latency may grow this much over the baseline before the limit shrinks.
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private double limit;
+    private int inflight;
+    private int waiting;
+    private double shortRtt;
+    private double baselineRtt;
+
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxQueue = maxQueue;
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+    }
+
+    // True once a slot is taken; false if the queue is full or no slot freed up within maxWait.
+    boolean acquire(long maxWait, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inflight < (int) limit) {
+                inflight++;
+                return true;
+            }
+            if (waiting >= maxQueue) return false;
+            waiting++;
+            try {
+                long remaining = unit.toNanos(maxWait);
+                while (inflight >= (int) limit) {
+                    if (remaining <= 0) return false;
+                    remaining = released.awaitNanos(remaining);
+                }
+                inflight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long rttNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inflight >= (int) limit;
+            inflight--;
+            update(rttNanos, saturated);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rtt, boolean saturated) {
+        shortRtt = shortRtt == 0 ? rtt : shortRtt * 0.9 + rtt * 0.1;
+        baselineRtt = baselineRtt == 0 ? rtt : Math.min(rtt, baselineRtt + (shortRtt - baselineRtt) * 0.001);
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRtt / shortRtt));
+        double next = limit * gradient;
+        // Only grow when latency is fine and the current limit is the bottleneck.
+        if (gradient == 1.0 && saturated) next += Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + next * SMOOTHING));
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
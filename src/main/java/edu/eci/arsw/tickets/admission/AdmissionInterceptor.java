@@ -0,0 +1,160 @@
+package edu.eci.arsw.tickets.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.eci.arsw.tickets.controllers.TicketAPIController;
+import edu.eci.arsw.tickets.controllers.TicketAPIController.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the ticket write endpoints (create, bulk create and
+ * call). Each client gets a token bucket per endpoint, identified by the
+ * remote address, or by the X-Client-Id header when the request comes from a
+ * trusted proxy (the header is the client's own choice otherwise, and a fresh
+ * id per request would never run out of tokens); all writes then share one
+ * AdaptiveLimiter so they can never take every pooled connection and starve
+ * the reads. Requests over either limit are answered 429 with Retry-After
+ * before reaching the controller.
+ */
+@Component
+@ConditionalOnProperty(name = "tickets.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final String ADMITTED_AT = AdmissionInterceptor.class.getName() + ".admittedAt";
+    private static final int MAX_CLIENT_ID_LENGTH = 64;
+    private static final Map<String, String> ENDPOINTS = Map.of("add", "create", "addBulk", "bulk", "call", "call");
+
+    private final ObjectMapper mapper;
+    private final AdaptiveLimiter limiter;
+    private final Map<String, Rate> rates = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Timer> queueWait = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final Set<String> trustedProxies;
+
+    @Value("${tickets.admission.concurrency.max-wait-ms:200}")
+    private long maxWaitMs;
+
+    public AdmissionInterceptor(ObjectMapper mapper, MeterRegistry registry, Environment environment,
+                                @Value("${tickets.admission.concurrency.initial-limit:8}") int initialLimit,
+                                @Value("${tickets.admission.concurrency.min-limit:2}") int minLimit,
+                                @Value("${tickets.admission.concurrency.max-limit:8}") int maxLimit,
+                                @Value("${tickets.admission.concurrency.max-queue:100}") int maxQueue,
+                                @Value("${tickets.admission.trusted-proxies:127.0.0.1,0:0:0:0:0:0:0:1}")
+                                List<String> trustedProxies) {
+        this.mapper = mapper;
+        this.registry = registry;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+        this.limiter = new AdaptiveLimiter(initialLimit, minLimit, maxLimit, maxQueue);
+        for (String endpoint : ENDPOINTS.values()) {
+            String prefix = "tickets.admission.rate." + endpoint;
+            rates.put(endpoint, new Rate(environment.getProperty(prefix + ".capacity", Double.class, 20.0),
+                    environment.getProperty(prefix + ".per-second", Double.class, 5.0)));
+        }
+        Gauge.builder("tickets.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                .description("Current concurrency limit of the write endpoints").register(registry);
+        Gauge.builder("tickets.admission.inflight", limiter, AdaptiveLimiter::getInflight).register(registry);
+        Gauge.builder("tickets.admission.queued", limiter, AdaptiveLimiter::getWaiting).register(registry);
+        Gauge.builder("tickets.admission.buckets", buckets, Map::size).register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException, InterruptedException {
+        if (!(handler instanceof HandlerMethod method) || method.getBeanType() != TicketAPIController.class) return true;
+        String endpoint = ENDPOINTS.get(method.getMethod().getName());
+        if (endpoint == null) return true;
+
+        long now = System.nanoTime();
+        Rate rate = rates.get(endpoint);
+        TokenBucket bucket = buckets.computeIfAbsent(endpoint + ":" + client(request),
+                key -> new TokenBucket(rate.capacity(), rate.perSecond(), now));
+        long retryIn = bucket.tryAcquire(now);
+        if (retryIn > 0) {
+            return reject(response, endpoint, "rate", retryIn, "Too many requests from this client, retry later");
+        }
+
+        boolean admitted = limiter.acquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        long admittedAt = System.nanoTime();
+        queueWait(endpoint).record(admittedAt - now, TimeUnit.NANOSECONDS);
+        if (!admitted) {
+            return reject(response, endpoint, "concurrency", TimeUnit.SECONDS.toNanos(1),
+                    "The service is busy, retry later");
+        }
+        request.setAttribute(ADMITTED_AT, admittedAt);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ADMITTED_AT) instanceof Long admittedAt) {
+            limiter.release(System.nanoTime() - admittedAt);
+        }
+    }
+
+    // Idle buckets are full again; dropping them keeps one entry per recently active client.
+    @Scheduled(fixedDelayString = "${tickets.admission.cleanup-interval-ms:60000}",
+            initialDelayString = "${tickets.admission.cleanup-interval-ms:60000}")
+    public void purgeIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private String client(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) return address;
+        String id = request.getHeader(CLIENT_ID_HEADER);
+        if (id != null && !id.isBlank() && id.length() <= MAX_CLIENT_ID_LENGTH) return id;
+        return address;
+    }
+
+    private boolean reject(HttpServletResponse response, String endpoint, String reason, long retryInNanos,
+                           String message) throws IOException {
+        Counter.builder("tickets.admission.rejected")
+                .description("Requests answered 429 before reaching the controller")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (retryInNanos + 999_999_999) / 1_000_000_000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(), new ApiResponse<>(429, message, null));
+        return false;
+    }
+
+    private Timer queueWait(String endpoint) {
+        return queueWait.computeIfAbsent(endpoint, e -> Timer.builder("tickets.admission.queue.wait")
+                .description("Time a write request waited for a concurrency slot")
+                .tag("endpoint", e)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private record Rate(double capacity, double perSecond) {
+    }
+}
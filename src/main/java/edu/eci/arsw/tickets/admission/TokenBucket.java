@@ -0,0 +1,40 @@
+package edu.eci.arsw.tickets.admission;
+
+/**
+ * Token bucket refilled continuously from the elapsed time: up to
+ * {@code capacity} requests in a burst and {@code perSecond} sustained.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double capacity, double perSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = perSecond / 1e9;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    // Takes a token and returns 0, or returns the nanoseconds until one is available.
+    synchronized long tryAcquire(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
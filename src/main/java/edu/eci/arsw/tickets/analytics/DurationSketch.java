@@ -0,0 +1,90 @@
+package edu.eci.arsw.tickets.analytics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Constant-memory quantile sketch of durations in milliseconds: log-linear
+ * buckets with 32 to 64 linear sub-buckets per power of two, so a percentile
+ * is reported within ~1.6% of the exact value. Recording is lock-free and two
+ * sketches merge by adding their counts.
+ */
+final class DurationSketch {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    // ~24 days; longer durations are clamped.
+    static final long MAX_VALUE = Integer.MAX_VALUE;
+    private static final int SIZE = index(MAX_VALUE) + 1;
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(SIZE);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long millis) {
+        long value = Math.min(Math.max(0, millis), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    void addAll(DurationSketch other) {
+        for (int i = 0; i < SIZE; i++) {
+            int c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // Percentiles in ascending order, answered in a single pass over the buckets.
+    long[] percentiles(double... percentiles) {
+        long[] values = new long[percentiles.length];
+        long total = count.sum();
+        if (total == 0) return values;
+        long top = max.get();
+        long seen = 0;
+        int next = 0;
+        for (int i = 0; i < SIZE && next < percentiles.length; i++) {
+            seen += counts.get(i);
+            while (next < percentiles.length
+                    && seen >= Math.max(1, (long) Math.ceil(percentiles[next] / 100.0 * total))) {
+                values[next++] = Math.min(middleValue(i), top);
+            }
+        }
+        while (next < percentiles.length) values[next++] = top;
+        return values;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int sub = (int) (value >>> shift) - HALF;
+        return SUB_BUCKETS + (shift - 1) * HALF + sub;
+    }
+
+    private static long middleValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long sub = (index - SUB_BUCKETS) % HALF + HALF;
+        return (sub << shift) + (1L << (shift - 1));
+    }
+}
@@ -0,0 +1,139 @@
+package edu.eci.arsw.tickets.analytics;
+
+import edu.eci.arsw.tickets.events.TicketEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Live waiting time (CREATED to CALLED) and service time (CALLED to
+ * COMPLETED) per queue and hour, fed by TicketEvents. Each queue keeps a ring
+ * of hourly DurationSketches covering the last {@code window-hours}, so
+ * memory stays constant and a query only merges those sketches. A ticket is
+ * completed when the next one of its queue is called, so its service time is
+ * the gap between the two calls. Waits count in the hour of the call, service
+ * times in the hour of the completion. Remote events are included: every node
+ * of a cluster reports the whole queue.
+ */
+@Component
+public class TicketAnalytics {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final int windowHours;
+    private final Map<String, Line> lines = new ConcurrentHashMap<>();
+
+    public TicketAnalytics(@Value("${tickets.analytics.window-hours:24}") int windowHours) {
+        this.windowHours = Math.max(1, windowHours);
+    }
+
+    public int getWindowHours() {
+        return windowHours;
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        if (event.type() != TicketEvent.Type.TICKET_CALLED) return;
+        Line line = lines.computeIfAbsent(event.queue(), q -> new Line(windowHours));
+        long calledAt = event.timestamp();
+        Hour hour = hour(line, calledAt / HOUR_MILLIS);
+        if (hour != null) hour.waiting.record(calledAt - event.createdAt());
+        Called previous = line.called.getAndSet(new Called(event.ticketId(), calledAt));
+        if (previous != null && previous.ticketId() != event.ticketId() && hour != null) {
+            hour.service.record(calledAt - previous.at());
+        }
+    }
+
+    /**
+     * Aggregates of the last {@code hours} hours of the queue (the current one
+     * included), overall and hour by hour, oldest first.
+     */
+    public QueueStats stats(String queue, int hours) {
+        int span = Math.max(1, Math.min(hours, windowHours));
+        long now = System.currentTimeMillis() / HOUR_MILLIS;
+        Line line = lines.get(queue);
+        DurationSketch waiting = new DurationSketch();
+        DurationSketch service = new DurationSketch();
+        List<HourStats> byHour = new ArrayList<>(span);
+        for (long h = now - span + 1; h <= now; h++) {
+            Hour hour = line == null ? null : line.hours.get(slot(h));
+            if (hour == null || hour.epochHour != h) {
+                byHour.add(new HourStats(Instant.ofEpochMilli(h * HOUR_MILLIS), Summary.EMPTY, Summary.EMPTY));
+                continue;
+            }
+            waiting.addAll(hour.waiting);
+            service.addAll(hour.service);
+            byHour.add(new HourStats(Instant.ofEpochMilli(h * HOUR_MILLIS),
+                    Summary.of(hour.waiting), Summary.of(hour.service)));
+        }
+        return new QueueStats(queue, Instant.ofEpochMilli((now - span + 1) * HOUR_MILLIS),
+                Instant.ofEpochMilli((now + 1) * HOUR_MILLIS), Summary.of(waiting), Summary.of(service), byHour);
+    }
+
+    // The bucket of the given hour, replacing the expired hour in its slot; null if already out of the window.
+    private Hour hour(Line line, long epochHour) {
+        if (epochHour <= System.currentTimeMillis() / HOUR_MILLIS - windowHours) return null;
+        int slot = slot(epochHour);
+        Hour current = line.hours.get(slot);
+        while (current == null || current.epochHour < epochHour) {
+            Hour fresh = new Hour(epochHour);
+            if (line.hours.compareAndSet(slot, current, fresh)) return fresh;
+            current = line.hours.get(slot);
+        }
+        return current.epochHour == epochHour ? current : null;
+    }
+
+    private int slot(long epochHour) {
+        return (int) Math.floorMod(epochHour, (long) windowHours);
+    }
+
+    public record QueueStats(String queue, Instant from, Instant to, Summary waiting, Summary service,
+                             List<HourStats> hours) {
+    }
+
+    public record HourStats(Instant hour, Summary waiting, Summary service) {
+    }
+
+    public record Summary(long count, long meanMillis, long p50Millis, long p90Millis, long p99Millis,
+                          long maxMillis) {
+
+        static final Summary EMPTY = new Summary(0, 0, 0, 0, 0, 0);
+
+        static Summary of(DurationSketch sketch) {
+            if (sketch.count() == 0) return EMPTY;
+            long[] p = sketch.percentiles(50, 90, 99);
+            return new Summary(sketch.count(), sketch.mean(), p[0], p[1], p[2], sketch.max());
+        }
+    }
+
+    private record Called(long ticketId, long at) {
+    }
+
+    private static final class Line {
+        final AtomicReferenceArray<Hour> hours;
+        final AtomicReference<Called> called = new AtomicReference<>();
+
+        Line(int windowHours) {
+            hours = new AtomicReferenceArray<>(windowHours);
+        }
+    }
+
+    private static final class Hour {
+        final long epochHour;
+        final DurationSketch waiting = new DurationSketch();
+        final DurationSketch service = new DurationSketch();
+
+        Hour(long epochHour) {
+            this.epochHour = epochHour;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package edu.eci.arsw.tickets.config;
+
+import edu.eci.arsw.tickets.admission.AdmissionInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<AdmissionInterceptor> admission;
+
+    public AdmissionConfig(ObjectProvider<AdmissionInterceptor> admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        admission.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/api/v1/tickets/create", "/api/v1/tickets/create/bulk", "/api/v1/tickets/call"));
+    }
+}
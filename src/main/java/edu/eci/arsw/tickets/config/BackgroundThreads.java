@@ -0,0 +1,31 @@
+package edu.eci.arsw.tickets.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factory for the application's own background workers. Follows
+ * spring.threads.virtual.enabled so flushers and publishers switch to
+ * virtual threads together with Tomcat and the task executors.
+ */
+@Component
+public class BackgroundThreads {
+
+    private final boolean virtual;
+
+    public BackgroundThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public ThreadFactory named(String name) {
+        return virtual
+                ? Thread.ofVirtual().name(name).factory()
+                : Thread.ofPlatform().name(name).daemon(true).factory();
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+}
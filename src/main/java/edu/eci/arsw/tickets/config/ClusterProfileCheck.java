@@ -0,0 +1,25 @@
+package edu.eci.arsw.tickets.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Refuses to start when {@code cluster} is combined with a persistence that
+ * keeps the live queue in one node's memory ({@code hotqueue} or
+ * {@code eventlog}): each node would call from its own copy of the queue and
+ * they would drift apart. ClusterEventBridge is not created in that case
+ * either, so without this check the node would come up silently unclustered.
+ */
+@Component
+@Profile("cluster & (hotqueue | eventlog)")
+public class ClusterProfileCheck {
+
+    public ClusterProfileCheck(Environment environment) {
+        throw new IllegalStateException("Profile 'cluster' cannot be combined with 'hotqueue' or 'eventlog' "
+                + "(active: " + Arrays.toString(environment.getActiveProfiles()) + "); their in-memory queue "
+                + "is per node. Run the cluster on the default Postgres persistence.");
+    }
+}
@@ -15,7 +15,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
 
-        registry.addMapping("/ws-blueprints")
+        registry.addMapping("/ws-tickets")
                 .allowedOrigins("http://localhost:5173")
                 .allowedMethods("GET", "POST", "OPTIONS")
                 .allowedHeaders("*")
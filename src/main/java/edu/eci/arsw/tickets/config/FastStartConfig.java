@@ -0,0 +1,41 @@
+package edu.eci.arsw.tickets.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * faststart profile: springdoc and the OpenAPI definition are created on the
+ * first /v3/api-docs or swagger-ui request instead of during startup. Only
+ * those beans are made lazy; the rest of the context keeps eager
+ * initialization so scheduled jobs, listeners and the hot queue start as usual.
+ */
+@Configuration
+@Profile("faststart")
+public class FastStartConfig {
+
+    private static final String SPRINGDOC = "org.springdoc.";
+
+    @Bean
+    static BeanFactoryPostProcessor lazyOpenApi() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isOpenApi(beanFactory, definition)) definition.setLazyInit(true);
+            }
+        };
+    }
+
+    private static boolean isOpenApi(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        String type = definition.getBeanClassName();
+        if (type == null && definition.getFactoryBeanName() != null
+                && beanFactory.containsBeanDefinition(definition.getFactoryBeanName())) {
+            // @Bean methods: judge them by the configuration class that declares them.
+            type = beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName();
+        }
+        return type != null && (type.startsWith(SPRINGDOC) || type.startsWith(OpenApiConfig.class.getName()));
+    }
+}
@@ -0,0 +1,38 @@
+package edu.eci.arsw.tickets.controllers;
+
+import edu.eci.arsw.tickets.model.TicketState;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compact encoding for boards and kiosks ({@value #MEDIA_TYPE}): one version
+ * byte, then for every ticket the id as a zigzag varint delta from the
+ * previous id and the state ordinal in one byte. A list ordered by id costs
+ * two or three bytes per ticket.
+ */
+public final class PackedTicketWriter {
+
+    public static final String MEDIA_TYPE = "application/vnd.tickets.packed";
+    public static final int VERSION = 1;
+
+    private final OutputStream out;
+    private long previousId;
+
+    public PackedTicketWriter(OutputStream out) throws IOException {
+        this.out = out;
+        out.write(VERSION);
+    }
+
+    public void write(long id, TicketState state) throws IOException {
+        long delta = id - previousId;
+        previousId = id;
+        long zigzag = (delta << 1) ^ (delta >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+        out.write(state.ordinal());
+    }
+}
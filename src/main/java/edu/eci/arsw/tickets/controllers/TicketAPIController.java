@@ -1,38 +1,75 @@
 package edu.eci.arsw.tickets.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.eci.arsw.tickets.analytics.TicketAnalytics;
 import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketPriority;
+import edu.eci.arsw.tickets.model.TicketState;
 import edu.eci.arsw.tickets.persistence.TicketNotFoundException;
 import edu.eci.arsw.tickets.persistence.TicketPersistenceException;
+import edu.eci.arsw.tickets.services.IdempotencyStore;
 import edu.eci.arsw.tickets.services.TicketServices;
-import edu.eci.arsw.tickets.socket.SocketIOClientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.validation.FieldError;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Set;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
 @RestController
 @RequestMapping("/api/v1/tickets")
 public class TicketAPIController {
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NEXT_FROM_HEADER = "X-Next-From";
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BULK_SIZE = 1000;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+
     private final TicketServices services;
-    private final SocketIOClientService socketIOClient;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotency;
+    private final TicketAnalytics analytics;
 
-    public TicketAPIController(TicketServices services, SocketIOClientService socketIOClient) {
+    public TicketAPIController(TicketServices services, ObjectMapper objectMapper, IdempotencyStore idempotency,
+                               TicketAnalytics analytics) {
         this.services = services;
-        this.socketIOClient = socketIOClient;
+        this.objectMapper = objectMapper;
+        this.idempotency = idempotency;
+        this.analytics = analytics;
     }
     // GET /api/v1/tickets
     @Operation(
-            summary = "Obtener todos los tickets",
-            description = "Retorna todos los tickets almacenados."
+            summary = "Obtener los tickets de una cola por páginas",
+            description = "Retorna hasta `limit` tickets de la cola ordenados por id, con id mayor a `after` y opcionalmente filtrados por estado. El cursor de la siguiente página viene en el header X-Next-Cursor."
     )
     @ApiResponses({
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Consulta exitosa",
@@ -42,12 +79,123 @@ public class TicketAPIController {
                     content = @Content)
     })
     @GetMapping
-    public ResponseEntity<ApiResponse<Set<?>>> getAll() {
-        Set<Ticket> tickets = services.getAllTickets();
-        socketIOClient.sendDrawEvent();
-        return ResponseEntity.ok(
-                new ApiResponse<>(200, "execute ok", tickets)
-        );
+    public ResponseEntity<ApiResponse<List<?>>> getAll(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @RequestParam(required = false) TicketState state,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Ticket> tickets = services.getTickets(queue, state, after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (tickets.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(tickets.get(tickets.size() - 1).getId()));
+        }
+        return response.body(new ApiResponse<>(200, "execute ok", tickets));
+    }
+    // GET /api/v1/tickets (Accept: application/vnd.tickets.packed)
+    @Operation(
+            summary = "Obtener los tickets de una cola en formato compacto",
+            description = "Con `Accept: application/vnd.tickets.packed` retorna todos los tickets de la cola con id mayor a `after` como pares (id, estado): un byte de versión y por ticket el delta del id como varint zigzag más el ordinal del estado. Se escribe directo a la respuesta mientras se recorren los tickets."
+    )
+    @GetMapping(produces = PackedTicketWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> getAllPacked(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @RequestParam(required = false) TicketState state,
+            @RequestParam(defaultValue = "0") long after) {
+        StreamingResponseBody body = out -> {
+            BufferedOutputStream buffered = new BufferedOutputStream(out);
+            PackedTicketWriter writer = new PackedTicketWriter(buffered);
+            services.forEachTicket(queue, state, after, ticket -> {
+                try {
+                    writer.write(ticket.getId(), ticket.getState());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(PackedTicketWriter.MEDIA_TYPE)).body(body);
+    }
+    // GET /api/v1/tickets/stats
+    @Operation(
+            summary = "Obtener tiempos de espera y de atención por hora",
+            description = "Retorna cantidad, promedio, p50, p90, p99 y máximo (en milisegundos) del tiempo de espera (CREATED a CALLED) y del tiempo de atención (CALLED a COMPLETED) de la cola en las últimas `hours` horas, en total y hora por hora. Se calcula en memoria a partir de las transiciones de tickets, sin consultar Postgres; los percentiles tienen un error relativo menor al 2%."
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Consulta exitosa",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Error interno del servidor",
+                    content = @Content)
+    })
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<TicketAnalytics.QueueStats>> stats(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @RequestParam(defaultValue = "24") int hours) {
+        return ResponseEntity.ok(new ApiResponse<>(200, "execute ok", analytics.stats(queue, hours)));
+    }
+    // GET /api/v1/tickets/history
+    @Operation(
+            summary = "Obtener el historial de tickets por rango de tiempo",
+            description = "Retorna hasta `limit` tickets de la cola que llegaron al estado `reached` (CREATED, CALLED o COMPLETED) entre `from` (incluido) y `to` (excluido, por defecto ahora), ordenados por ese momento y por id, incluyendo los tickets archivados. Por ejemplo, los llamados entre las 10:00 y las 11:00 son `reached=CALLED&from=...T10:00:00Z&to=...T11:00:00Z`. La siguiente página se pide con `from` igual al header X-Next-From y `after` igual al header X-Next-Cursor."
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Consulta exitosa",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "`from` debe ser anterior a `to`",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Error interno del servidor",
+                    content = @Content)
+    })
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<List<?>>> history(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @RequestParam(defaultValue = "CALLED") TicketState reached,
+            @RequestParam Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        Instant until = to != null ? to : Instant.now();
+        if (!from.isBefore(until)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    new ApiResponse<>(400, "Validation error: from must be before to", null)
+            );
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Ticket> tickets = services.getHistory(queue, reached, from, until, after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (tickets.size() == pageSize) {
+            Ticket last = tickets.get(tickets.size() - 1);
+            response.header(NEXT_FROM_HEADER, last.reachedAt(reached).toString())
+                    .header(NEXT_CURSOR_HEADER, String.valueOf(last.getId()));
+        }
+        return response.body(new ApiResponse<>(200, "execute ok", tickets));
+    }
+    // GET /api/v1/tickets/stream
+    @Operation(
+            summary = "Transmitir los tickets de una cola como NDJSON",
+            description = "Escribe un ticket por línea ordenado por id, sin cargar la tabla completa en memoria."
+    )
+    @GetMapping(value = "/stream", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @RequestParam(required = false) TicketState state) {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            services.forEachTicket(queue, state, 0, ticket -> {
+                try {
+                    generator.writeObject(ticket);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeRaw('\n');
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
     }
     // GET /api/v1/tickets/{id}
     @Operation(
@@ -65,11 +213,14 @@ public class TicketAPIController {
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<?>> byId(@PathVariable long id) {
+    public ResponseEntity<ApiResponse<?>> byId(@PathVariable long id, WebRequest request) {
         try {
             Ticket ticket = services.getTicketById(id);
-            socketIOClient.sendDrawEvent();
-            return ResponseEntity.ok(
+            String etag = etag(ticket);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(
                     new ApiResponse<>(200, "execute ok", ticket)
             );
         } catch (TicketNotFoundException e) {
@@ -78,10 +229,57 @@ public class TicketAPIController {
             );
         }
     }
+    // GET /api/v1/tickets/{id}/position
+    @Operation(
+            summary = "Obtener la posición de un ticket en su cola",
+            description = "Retorna el estado del ticket, cuántos tickets en espera serán llamados antes que él (`ahead`, según la política de llamado configurada) y el total en espera de la cola. `ahead` es null si el ticket ya no está en espera. Pensado para que los celulares de los pacientes consulten periódicamente: se responde desde la caché y un índice en memoria, sin recorrer la cola."
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Consulta exitosa",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Ticket no encontrado",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Error interno del servidor",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/position")
+    public ResponseEntity<ApiResponse<?>> position(@PathVariable long id) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>(200, "execute ok", services.getPosition(id)));
+        } catch (TicketNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    new ApiResponse<>(404, e.getMessage(), null)
+            );
+        }
+    }
+    // GET /api/v1/tickets/called (Accept: application/vnd.tickets.packed)
+    @Operation(
+            summary = "Obtener el ticket CALLED en formato compacto",
+            description = "Con `Accept: application/vnd.tickets.packed` retorna el ticket CALLED de la cola como un único par (id, estado), con el mismo ETag que la versión JSON."
+    )
+    @GetMapping(value = "/called", produces = PackedTicketWriter.MEDIA_TYPE)
+    public ResponseEntity<byte[]> calledTicketPacked(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue, WebRequest request) throws IOException {
+        try {
+            Ticket ticket = services.getCalledTicket(queue);
+            String etag = etag(ticket);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+            new PackedTicketWriter(out).write(ticket.getId(), ticket.getState());
+            return ResponseEntity.ok().eTag(etag)
+                    .contentType(MediaType.parseMediaType(PackedTicketWriter.MEDIA_TYPE)).body(out.toByteArray());
+        } catch (TicketNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
     // GET /api/v1/tickets/called
     @Operation(
             summary = "Obtener el ticket con estado CALLED",
-            description = "Retorna un ticket con el estado de CALLED"
+            description = "Retorna el ticket con el estado de CALLED de una cola"
     )
     @ApiResponses({
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Consulta exitosa",
@@ -94,11 +292,15 @@ public class TicketAPIController {
                     content = @Content)
     })
     @GetMapping("/called")
-    public ResponseEntity<ApiResponse<?>> calledTicket() {
+    public ResponseEntity<ApiResponse<?>> calledTicket(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue, WebRequest request) {
         try {
-            Ticket ticket = services.getCalledTicket();
-            socketIOClient.sendDrawEvent();
-            return ResponseEntity.ok(
+            Ticket ticket = services.getCalledTicket(queue);
+            String etag = etag(ticket);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(
                     new ApiResponse<>(200, "execute ok", ticket)
             );
         } catch (TicketNotFoundException e) {
@@ -110,28 +312,90 @@ public class TicketAPIController {
     // POST /api/v1/tickets/create
     @Operation(
             summary = "Crear un nuevo ticket",
-            description = "Crea un ticket con autor, nombre y lista de puntos."
+            description = "Crea un ticket en la cola indicada con la prioridad dada (NORMAL, ELDERLY, PREGNANT, EMERGENCY) y retorna su id. La prioridad solo cambia el orden de llamado con la política `priority`. Con el header `Idempotency-Key` los reintentos con la misma llave retornan el resultado original sin crear otro ticket."
     )
     @ApiResponses({
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Ticket creado exitosamente",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Una solicitud con la misma Idempotency-Key sigue en curso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "422", description = "La Idempotency-Key ya se usó con otros parámetros",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Ticket ya existe o no se puede persistir",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiResponse.class))),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Error de validación en la solicitud",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Demasiadas solicitudes; reintentar después del tiempo indicado en Retry-After",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Error interno del servidor",
                     content = @Content)
     })
     @PostMapping("/create")
-    public ResponseEntity<ApiResponse<?>> add() {
+    public ResponseEntity<ApiResponse<?>> add(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @RequestParam(defaultValue = "NORMAL") TicketPriority priority,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent("create", idempotencyKey, "queue=" + queue + "&priority=" + priority, () -> {
+            try {
+                Ticket ticket = new Ticket(queue, priority);
+                services.addNewTicket(ticket);
+                return ResponseEntity.status(HttpStatus.CREATED).body(
+                        new ApiResponse<>(201, "Ticket created successfully", ticket.getId())
+                );
+            } catch (TicketPersistenceException e) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(
+                        new ApiResponse<>(403, e.getMessage(), null)
+                );
+            }
+        });
+    }
+    // POST /api/v1/tickets/create/bulk
+    @Operation(
+            summary = "Crear tickets en lote",
+            description = "Crea `count` tickets en la cola indicada o un ticket por cada cola de la lista `queues`, en un solo lote de inserciones, todos con la prioridad `priority` (NORMAL por defecto). Retorna los ids asignados en orden."
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Tickets creados exitosamente",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Los tickets no se pueden persistir",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Error de validación en la solicitud",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Demasiadas solicitudes; reintentar después del tiempo indicado en Retry-After",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Error interno del servidor",
+                    content = @Content)
+    })
+    @PostMapping("/create/bulk")
+    public ResponseEntity<ApiResponse<?>> addBulk(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @Valid @RequestBody BulkCreateRequest request) {
+        List<Ticket> tickets = new ArrayList<>();
+        TicketPriority priority = request.priority() != null ? request.priority() : TicketPriority.NORMAL;
+        if (request.queues() != null) {
+            for (String ticketQueue : request.queues()) tickets.add(new Ticket(ticketQueue, priority));
+        } else if (request.count() != null) {
+            for (int i = 0; i < request.count(); i++) tickets.add(new Ticket(queue, priority));
+        }
+        if (tickets.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    new ApiResponse<>(400, "Validation error: count or queues is required", null)
+            );
+        }
         try {
-            Ticket ticket = new Ticket();
-            services.addNewTicket(ticket);
+            List<Long> ids = services.addNewTickets(tickets).stream().map(Ticket::getId).toList();
             return ResponseEntity.status(HttpStatus.CREATED).body(
-                    new ApiResponse<>(201, "Ticket created successfully", null)
+                    new ApiResponse<>(201, "Tickets created successfully", ids)
             );
         } catch (TicketPersistenceException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(
@@ -142,32 +406,90 @@ public class TicketAPIController {
     // PUT /api/v1/tickets/call
     @Operation(
             summary = "Llama al siguiente ticket que este en estado CREATED y cambia el estado del anterior CALLED",
-            description = "Llama al siguiente ticket que este en estado CREATED y los cambia a CALLED, y cambia el estado del anterior CALLED"
+            description = "Llama al siguiente ticket que este en estado CREATED de la cola y los cambia a CALLED desde el contador indicado, y cambia el estado del anterior CALLED. Retorna el id del ticket llamado. Con el header `Idempotency-Key` los reintentos con la misma llave retornan el resultado original sin llamar otro ticket."
     )
     @ApiResponses({
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Punto agregado exitosamente",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Una solicitud con la misma Idempotency-Key sigue en curso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "422", description = "La Idempotency-Key ya se usó con otros parámetros",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Ticket no encontrado",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Demasiadas solicitudes; reintentar después del tiempo indicado en Retry-After",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiResponse.class))),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Error interno del servidor",
                     content = @Content)
     })
     @PutMapping("/call")
-    public ResponseEntity<ApiResponse<?>> call() {
-        try {
-            services.callNextTicket();
-            socketIOClient.sendDrawEvent();
+    public ResponseEntity<ApiResponse<?>> call(
+            @RequestParam(defaultValue = Ticket.DEFAULT_QUEUE) String queue,
+            @RequestParam(required = false) String counter,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotent("call", idempotencyKey, "queue=" + queue + "&counter=" + counter, () -> {
+            try {
+                Ticket ticket = services.callNextTicket(queue, counter);
 
-            return ResponseEntity.status(HttpStatus.ACCEPTED).body(
-                    new ApiResponse<>(202, "called successfully", null)
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                        new ApiResponse<>(202, "called successfully", ticket.getId())
+                );
+            } catch (TicketNotFoundException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                        new ApiResponse<>(404, e.getMessage(), null)
+                );
+            }
+        });
+    }
+
+    // Runs the request once per Idempotency-Key; only successful results are kept for replay, and only for
+    // requests with the same parameters (the fingerprint).
+    private ResponseEntity<ApiResponse<?>> idempotent(String operation, String key, String fingerprint,
+                                                      Supplier<ResponseEntity<ApiResponse<?>>> request) {
+        if (key == null) return request.get();
+        if (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    new ApiResponse<>(400, "Validation error: Idempotency-Key must have 1 to "
+                            + MAX_IDEMPOTENCY_KEY_LENGTH + " characters", null)
             );
-        } catch (TicketNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
-                    new ApiResponse<>(404, e.getMessage(), null)
+        }
+        Optional<IdempotencyStore.Result> previous = idempotency.claim(operation, key, fingerprint);
+        if (previous.isPresent()) {
+            IdempotencyStore.Result result = previous.get();
+            if (result.mismatch()) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(
+                        new ApiResponse<>(422, "Idempotency-Key was already used with different parameters", null)
+                );
+            }
+            if (result.inProgress()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                        new ApiResponse<>(409, "A request with this Idempotency-Key is still in progress", null)
+                );
+            }
+            return ResponseEntity.status(result.status()).header(REPLAYED_HEADER, "true").body(
+                    new ApiResponse<>(result.status(), result.message(), result.ticketId())
             );
         }
+        ResponseEntity<ApiResponse<?>> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            idempotency.release(operation, key);
+            throw e;
+        }
+        ApiResponse<?> body = response.getBody();
+        if (response.getStatusCode().is2xxSuccessful() && body != null) {
+            idempotency.complete(operation, key, fingerprint, new IdempotencyStore.Result(body.code(), body.message(),
+                    body.data() instanceof Long id ? id : null));
+        } else {
+            idempotency.release(operation, key);
+        }
+        return response;
     }
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<?>> handleValidationErrors(
@@ -181,5 +503,18 @@ public class TicketAPIController {
                 new ApiResponse<>(400, "Validation error: " + message, null)
         );
     }
+    // A ticket only changes through its state, so id and state identify the representation.
+    private static String etag(Ticket ticket) {
+        return "\"" + ticket.getId() + "-" + ticket.getState().ordinal() + "\"";
+    }
+
     public record ApiResponse<T>(int code, String message, T data) {}
+
+    public record BulkCreateRequest(
+            @Min(value = 1, message = "count must be at least 1")
+            @Max(value = MAX_BULK_SIZE, message = "count must be at most " + MAX_BULK_SIZE)
+            Integer count,
+            @Size(max = MAX_BULK_SIZE, message = "queues must have at most " + MAX_BULK_SIZE + " entries")
+            List<@NotBlank(message = "queue names must not be blank") String> queues,
+            TicketPriority priority) {}
 }
@@ -0,0 +1,165 @@
+package edu.eci.arsw.tickets.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.eci.arsw.tickets.config.BackgroundThreads;
+import edu.eci.arsw.tickets.services.QueuePositions;
+import edu.eci.arsw.tickets.services.TicketCache;
+import edu.eci.arsw.tickets.services.TicketScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster mode: every node NOTIFYs its own TicketEvents on a Postgres channel
+ * and LISTENs on one dedicated pooled connection, republishing what other
+ * nodes sent as remote TicketEvents so caches, schedulers, positions and
+ * STOMP clients of every node follow the same queue. Queue transitions
+ * themselves are already serialized across nodes by the advisory lock in the
+ * persistence.
+ */
+@Component
+@Profile("cluster & !hotqueue & !eventlog")
+public class ClusterEventBridge {
+
+    static final String CHANNEL = "ticket_events";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterEventBridge.class);
+
+    private final JdbcTemplate jdbc;
+    private final DataSource dataSource;
+    private final ObjectMapper mapper;
+    private final ApplicationEventPublisher events;
+    private final TicketCache cache;
+    private final TicketScheduler scheduler;
+    private final QueuePositions positions;
+    private final BackgroundThreads threads;
+    private final String nodeId;
+    private final Counter sent;
+    private final Counter received;
+    private final Counter failures;
+    private final Timer lag;
+    private volatile boolean running = true;
+    private Thread listener;
+
+    public ClusterEventBridge(JdbcTemplate jdbc, DataSource dataSource, ObjectMapper mapper,
+                              ApplicationEventPublisher events, TicketCache cache, TicketScheduler scheduler,
+                              QueuePositions positions, BackgroundThreads threads, MeterRegistry registry,
+                              @Value("${tickets.cluster.node-id:${HOSTNAME:}}") String nodeId) {
+        this.jdbc = jdbc;
+        this.dataSource = dataSource;
+        this.mapper = mapper;
+        this.events = events;
+        this.cache = cache;
+        this.scheduler = scheduler;
+        this.positions = positions;
+        this.threads = threads;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.sent = Counter.builder("tickets.cluster.notifications").tag("direction", "sent").register(registry);
+        this.received = Counter.builder("tickets.cluster.notifications").tag("direction", "received").register(registry);
+        this.failures = Counter.builder("tickets.cluster.notifications.failures").register(registry);
+        this.lag = Timer.builder("tickets.cluster.lag")
+                .description("Delay between a call on another node and its arrival here")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        listener = threads.named("tickets-cluster-listen").newThread(this::listen);
+        listener.start();
+        log.info("Cluster node {} listening on channel {}", nodeId, CHANNEL);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listener.interrupt();
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        if (event.remote()) return;
+        try {
+            String payload = mapper.writeValueAsString(new Notification(nodeId, event));
+            jdbc.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+            sent.increment();
+        } catch (JsonProcessingException | DataAccessException e) {
+            failures.increment();
+            log.warn("Could not notify ticket event {} to the cluster", event, e);
+        }
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnect) {
+                    // Notifications sent while disconnected are lost; drop everything derived from them.
+                    cache.clear();
+                    scheduler.reset();
+                    positions.reset();
+                }
+                reconnect = true;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(500);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) receive(notification.getParameter());
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Cluster LISTEN connection lost, reconnecting", e);
+                try {
+                    Thread.sleep(1_000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        Notification notification;
+        try {
+            notification = mapper.readValue(payload, Notification.class);
+        } catch (JsonProcessingException e) {
+            failures.increment();
+            log.warn("Ignoring malformed cluster notification {}", payload, e);
+            return;
+        }
+        if (nodeId.equals(notification.node())) return;
+        received.increment();
+        TicketEvent event = notification.event();
+        if (event.type() == TicketEvent.Type.TICKET_CALLED) {
+            lag.record(Math.max(0, System.currentTimeMillis() - event.timestamp()), TimeUnit.MILLISECONDS);
+        }
+        events.publishEvent(event.asRemote());
+    }
+
+    record Notification(String node, TicketEvent event) {
+    }
+}
@@ -0,0 +1,138 @@
+package edu.eci.arsw.tickets.events;
+
+import edu.eci.arsw.tickets.config.BackgroundThreads;
+import edu.eci.arsw.tickets.socket.SocketIOClientService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns ticket state changes into batched TicketDeltas for the Socket.IO
+ * bridge. Request threads only offer the delta to a bounded queue; a worker
+ * drains it every batch window and hands the batch to the bridge, which keeps
+ * only the latest delta of each ticket. When the queue is full the delta
+ * is dropped and counted instead of blocking, and its queue is marked for a
+ * resync so boards refetch it once.
+ */
+@Component
+public class QueueChangePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueChangePublisher.class);
+
+    private final SocketIOClientService socketIOClient;
+    private final BackgroundThreads threads;
+    private final BlockingQueue<Pending> ready;
+    private final Map<String, Long> lastCalled = new ConcurrentHashMap<>();
+    private final Set<String> resync = ConcurrentHashMap.newKeySet();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private volatile boolean running = true;
+    private Thread worker;
+
+    @Value("${tickets.events.batch-window-ms:25}")
+    private long batchWindowMs;
+
+    public QueueChangePublisher(SocketIOClientService socketIOClient, BackgroundThreads threads,
+                                @Value("${tickets.events.capacity:1024}") int capacity) {
+        this.socketIOClient = socketIOClient;
+        this.threads = threads;
+        this.ready = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = threads.named("tickets-queue-events").newThread(this::run);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        // The node that made the change notifies the Socket.IO bridge; remote calls only move lastCalled.
+        switch (event.type()) {
+            case TICKET_CREATED -> {
+                if (!event.remote()) offer(new TicketDelta(TicketDelta.CREATED, event.ticketId(), event.queue(), null));
+            }
+            case TICKET_CALLED -> {
+                Long previous = lastCalled.put(event.queue(), event.ticketId());
+                if (event.remote()) return;
+                if (previous != null && previous != event.ticketId()) {
+                    offer(new TicketDelta(TicketDelta.COMPLETED, previous, event.queue(), null));
+                }
+                offer(new TicketDelta(TicketDelta.CALLED, event.ticketId(), event.queue(), event.counter()));
+            }
+        }
+    }
+
+    private void offer(TicketDelta delta) {
+        if (!ready.offer(new Pending(delta, System.nanoTime()))) {
+            resync.add(delta.queue());
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Pending first = ready.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                Thread.sleep(batchWindowMs);
+                ready.drainTo(batch);
+                publish(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not publish {} ticket deltas", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void publish(List<Pending> batch) {
+        List<TicketDelta> deltas = new ArrayList<>(batch.size());
+        for (Pending pending : batch) deltas.add(pending.delta());
+        Set<String> missed = Set.copyOf(resync);
+        resync.removeAll(missed);
+        coalesced.addAndGet(socketIOClient.send(deltas, missed));
+        long lag = System.nanoTime() - batch.get(0).since();
+        lastLagNanos.set(lag);
+        maxLagNanos.accumulateAndGet(lag, Math::max);
+        published.addAndGet(batch.size());
+    }
+
+    public long getPublished() { return published.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getDropped() { return dropped.get(); }
+    public int getPending() { return ready.size(); }
+    public long getLastLagNanos() { return lastLagNanos.get(); }
+    public long getMaxLagNanos() { return maxLagNanos.get(); }
+
+    private record Pending(TicketDelta delta, long since) {
+    }
+}
@@ -0,0 +1,7 @@
+package edu.eci.arsw.tickets.events;
+
+public record TicketDelta(String type, long id, String queue, String counter) {
+    public static final String CREATED = "created";
+    public static final String CALLED = "called";
+    public static final String COMPLETED = "completed";
+}
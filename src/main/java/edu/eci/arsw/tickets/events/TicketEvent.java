@@ -0,0 +1,36 @@
+package edu.eci.arsw.tickets.events;
+
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketPriority;
+import edu.eci.arsw.tickets.model.TicketState;
+
+import java.time.Instant;
+
+// timestamp is the creation time for TICKET_CREATED and the call time for TICKET_CALLED;
+// createdAt is always the ticket's creation time. Remote events were published by another node of the cluster.
+public record TicketEvent(Type type, long ticketId, String queue, TicketState state, String counter,
+                          TicketPriority priority, long createdAt, long timestamp, boolean remote) {
+
+    public enum Type {
+        TICKET_CREATED,
+        TICKET_CALLED
+    }
+
+    public static TicketEvent created(Ticket ticket) {
+        return of(Type.TICKET_CREATED, ticket, ticket.getCreatedAt().toEpochMilli());
+    }
+
+    public static TicketEvent called(Ticket ticket) {
+        Instant calledAt = ticket.getCalledAt();
+        return of(Type.TICKET_CALLED, ticket, calledAt != null ? calledAt.toEpochMilli() : System.currentTimeMillis());
+    }
+
+    private static TicketEvent of(Type type, Ticket ticket, long timestamp) {
+        return new TicketEvent(type, ticket.getId(), ticket.getQueue(), ticket.getState(),
+                ticket.getCounter(), ticket.getPriority(), ticket.getCreatedAt().toEpochMilli(), timestamp, false);
+    }
+
+    public TicketEvent asRemote() {
+        return new TicketEvent(type, ticketId, queue, state, counter, priority, createdAt, timestamp, true);
+    }
+}
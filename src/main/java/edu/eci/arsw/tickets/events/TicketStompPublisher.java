@@ -0,0 +1,44 @@
+package edu.eci.arsw.tickets.events;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes ticket deltas to STOMP subscribers of /topic/tickets and of the
+ * per-queue topic /topic/tickets.{queue}.
+ */
+@Component
+public class TicketStompPublisher {
+
+    private static final String TOPIC = "/topic/tickets";
+
+    private final SimpMessagingTemplate messaging;
+    private final Map<String, Long> lastCalled = new ConcurrentHashMap<>();
+
+    public TicketStompPublisher(SimpMessagingTemplate messaging) {
+        this.messaging = messaging;
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        switch (event.type()) {
+            case TICKET_CREATED -> send(new TicketDelta(TicketDelta.CREATED, event.ticketId(), event.queue(), null));
+            case TICKET_CALLED -> {
+                Long previous = lastCalled.put(event.queue(), event.ticketId());
+                if (previous != null && previous != event.ticketId()) {
+                    send(new TicketDelta(TicketDelta.COMPLETED, previous, event.queue(), null));
+                }
+                send(new TicketDelta(TicketDelta.CALLED, event.ticketId(), event.queue(), event.counter()));
+            }
+        }
+    }
+
+    private void send(TicketDelta delta) {
+        messaging.convertAndSend(TOPIC, delta);
+        messaging.convertAndSend(TOPIC + "." + delta.queue(), delta);
+    }
+}
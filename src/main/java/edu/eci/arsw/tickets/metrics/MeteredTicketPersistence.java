@@ -0,0 +1,161 @@
+package edu.eci.arsw.tickets.metrics;
+
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+import edu.eci.arsw.tickets.persistence.TicketNotFoundException;
+import edu.eci.arsw.tickets.persistence.TicketPersistence;
+import edu.eci.arsw.tickets.persistence.TicketPersistenceException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Times every TicketPersistence call as tickets.persistence{operation, impl}.
+ * Timers are resolved once up front so the hot path only reads the clock.
+ */
+public class MeteredTicketPersistence implements TicketPersistence {
+
+    private final TicketPersistence delegate;
+    private final Timer save;
+    private final Timer saveAll;
+    private final Timer called;
+    private final Timer byId;
+    private final Timer page;
+    private final Timer stream;
+    private final Timer history;
+    private final Timer callNext;
+    private final Timer callTicket;
+    private final Timer count;
+
+    public MeteredTicketPersistence(TicketPersistence delegate, String impl, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.save = timer(registry, impl, "saveTicket");
+        this.saveAll = timer(registry, impl, "saveTickets");
+        this.called = timer(registry, impl, "getCalledTicket");
+        this.byId = timer(registry, impl, "getTicketById");
+        this.page = timer(registry, impl, "getTickets");
+        this.stream = timer(registry, impl, "forEachTicket");
+        this.history = timer(registry, impl, "getHistory");
+        this.callNext = timer(registry, impl, "CallNextTicket");
+        this.callTicket = timer(registry, impl, "callTicket");
+        this.count = timer(registry, impl, "countTickets");
+    }
+
+    private static Timer timer(MeterRegistry registry, String impl, String operation) {
+        return Timer.builder("tickets.persistence")
+                .description("Latency of TicketPersistence operations")
+                .tag("operation", operation)
+                .tag("impl", impl)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public TicketPersistence getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void saveTicket(Ticket ticket) throws TicketPersistenceException {
+        long start = System.nanoTime();
+        try {
+            delegate.saveTicket(ticket);
+        } finally {
+            save.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void saveTickets(List<Ticket> tickets) throws TicketPersistenceException {
+        long start = System.nanoTime();
+        try {
+            delegate.saveTickets(tickets);
+        } finally {
+            saveAll.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Ticket getCalledTicket(String queue) throws TicketNotFoundException {
+        long start = System.nanoTime();
+        try {
+            return delegate.getCalledTicket(queue);
+        } finally {
+            called.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Ticket getTicketById(long id) throws TicketNotFoundException {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTicketById(id);
+        } finally {
+            byId.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<Ticket> getTickets(String queue, TicketState state, long afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTickets(queue, state, afterId, limit);
+        } finally {
+            page.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void forEachTicket(String queue, TicketState state, long afterId, Consumer<Ticket> action) {
+        long start = System.nanoTime();
+        try {
+            delegate.forEachTicket(queue, state, afterId, action);
+        } finally {
+            stream.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<Ticket> getHistory(String queue, TicketState reached, Instant from, Instant to, long afterId,
+                                   int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistory(queue, reached, from, to, afterId, limit);
+        } finally {
+            history.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Ticket CallNextTicket(String queue, String counter) throws TicketNotFoundException {
+        long start = System.nanoTime();
+        try {
+            return delegate.CallNextTicket(queue, counter);
+        } finally {
+            callNext.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Ticket callTicket(String queue, long id, String counter) throws TicketNotFoundException {
+        long start = System.nanoTime();
+        try {
+            return delegate.callTicket(queue, id, counter);
+        } finally {
+            callTicket.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public long countTickets(TicketState state) {
+        long start = System.nanoTime();
+        try {
+            return delegate.countTickets(state);
+        } finally {
+            count.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package edu.eci.arsw.tickets.metrics;
+
+import edu.eci.arsw.tickets.persistence.TicketPersistence;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Wraps whichever TicketPersistence implementation the active profile selects.
+    @Bean
+    public static BeanPostProcessor meteredTicketPersistence(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof TicketPersistence persistence && !(bean instanceof MeteredTicketPersistence)) {
+                    String impl = AopUtils.getTargetClass(bean).getSimpleName();
+                    return new MeteredTicketPersistence(persistence, impl, registry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package edu.eci.arsw.tickets.metrics;
+
+import edu.eci.arsw.tickets.events.QueueChangePublisher;
+import edu.eci.arsw.tickets.events.TicketEvent;
+import edu.eci.arsw.tickets.model.TicketState;
+import edu.eci.arsw.tickets.persistence.TicketPersistence;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue-level metrics: depth per state, patient waiting time between
+ * CREATED and CALLED, and the queue-changed publisher's counters.
+ */
+@Component
+public class TicketMetrics {
+
+    private final Timer waitTime;
+
+    public TicketMetrics(MeterRegistry registry, TicketPersistence persistence, QueueChangePublisher publisher) {
+        for (TicketState state : TicketState.values()) {
+            Gauge.builder("tickets.queue.depth", persistence, p -> p.countTickets(state))
+                    .description("Tickets currently in each state")
+                    .tag("state", state.name())
+                    .register(registry);
+        }
+        this.waitTime = Timer.builder("tickets.wait.time")
+                .description("Time a ticket waits between CREATED and CALLED")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        FunctionCounter.builder("tickets.events.published", publisher, QueueChangePublisher::getPublished)
+                .description("Queue-changed notifications sent to Socket.IO").register(registry);
+        FunctionCounter.builder("tickets.events.coalesced", publisher, QueueChangePublisher::getCoalesced)
+                .description("Queue changes merged into an already pending notification").register(registry);
+        FunctionCounter.builder("tickets.events.dropped", publisher, QueueChangePublisher::getDropped)
+                .description("Queue changes dropped because the buffer was full").register(registry);
+        Gauge.builder("tickets.events.pending", publisher, QueueChangePublisher::getPending)
+                .description("Queue-changed notifications waiting to be sent").register(registry);
+        Gauge.builder("tickets.events.lag", publisher, p -> p.getLastLagNanos() / 1e9)
+                .description("Delay between the first change and its notification").baseUnit("seconds").register(registry);
+        Gauge.builder("tickets.events.lag.max", publisher, p -> p.getMaxLagNanos() / 1e9)
+                .baseUnit("seconds").register(registry);
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        // Only the calling node records the wait; the event carries the creation time, so nothing is tracked per ticket.
+        if (event.type() == TicketEvent.Type.TICKET_CALLED && !event.remote()) {
+            waitTime.record(event.timestamp() - event.createdAt(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
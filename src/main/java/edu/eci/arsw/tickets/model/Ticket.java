@@ -2,17 +2,61 @@ package edu.eci.arsw.tickets.model;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
 
 @Entity
 @Table(name = "tickets")
 public class Ticket {
+    public static final String DEFAULT_QUEUE = "HOSPITAL";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tickets_seq")
+    @SequenceGenerator(name = "tickets_seq", sequenceName = "tickets_seq", allocationSize = 50)
     private Long id;
     private TicketState state;
+    @Column(name = "queue", nullable = false, columnDefinition = "varchar(64) not null default 'HOSPITAL'")
+    private String queue;
+    private String counter;
+    private Integer number;
+    private TicketPriority priority;
+    private Instant createdAt;
+    private Instant calledAt;
+    private Instant completedAt;
 
     public Ticket() {
+        this(DEFAULT_QUEUE);
+    }
+
+    public Ticket(String queue) {
+        this(queue, TicketPriority.NORMAL);
+    }
+
+    public Ticket(String queue, TicketPriority priority) {
         this.state = TicketState.CREATED;
+        this.queue = queue;
+        this.priority = priority;
+        this.createdAt = now();
+    }
+
+    // Current time at the precision Postgres stores, so in-memory and stored transition times compare equal.
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    // Rebuilds a ticket from the event log, a snapshot or a history row.
+    public Ticket(long id, String queue, TicketState state, String counter, Integer number,
+                  TicketPriority priority, Instant createdAt, Instant calledAt, Instant completedAt) {
+        this.id = id;
+        this.queue = queue;
+        this.state = state;
+        this.counter = counter;
+        this.number = number;
+        this.priority = priority;
+        this.createdAt = createdAt;
+        this.calledAt = calledAt;
+        this.completedAt = completedAt;
     }
 
     public long getId() {
@@ -26,4 +70,57 @@ public class Ticket {
     public void setState(TicketState ticketState) {
         this.state = ticketState;
     }
+
+    public String getQueue() {
+        return queue;
+    }
+
+    public String getCounter() {
+        return counter;
+    }
+
+    public void setCounter(String counter) {
+        this.counter = counter;
+    }
+
+    public Integer getNumber() {
+        return number;
+    }
+
+    public void setNumber(Integer number) {
+        this.number = number;
+    }
+
+    public TicketPriority getPriority() {
+        return priority;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getCalledAt() {
+        return calledAt;
+    }
+
+    public void setCalledAt(Instant calledAt) {
+        this.calledAt = calledAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    // When the ticket reached the given state, or null if it has not yet.
+    public Instant reachedAt(TicketState reached) {
+        return switch (reached) {
+            case CREATED -> createdAt;
+            case CALLED -> calledAt;
+            case COMPLETED -> completedAt;
+        };
+    }
 }
@@ -0,0 +1,25 @@
+package edu.eci.arsw.tickets.model;
+
+import java.time.Duration;
+
+/**
+ * Priority class of a ticket. The head start is how much earlier than its
+ * creation time a ticket ranks under the priority policy, so a NORMAL ticket
+ * that has waited longer than that is still called before a newer EMERGENCY one.
+ */
+public enum TicketPriority {
+    NORMAL(Duration.ZERO),
+    ELDERLY(Duration.ofMinutes(10)),
+    PREGNANT(Duration.ofMinutes(10)),
+    EMERGENCY(Duration.ofMinutes(60));
+
+    private final Duration headStart;
+
+    TicketPriority(Duration headStart) {
+        this.headStart = headStart;
+    }
+
+    public Duration getHeadStart() {
+        return headStart;
+    }
+}
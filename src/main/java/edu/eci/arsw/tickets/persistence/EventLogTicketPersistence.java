@@ -0,0 +1,342 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.config.BackgroundThreads;
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketPriority;
+import edu.eci.arsw.tickets.model.TicketState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static edu.eci.arsw.tickets.model.TicketState.COMPLETED;
+
+/**
+ * Hot queue that also appends every transition to the ticket_events log and
+ * periodically snapshots the live queue, so a restart loads the latest
+ * snapshot plus the events after it instead of scanning the tickets table.
+ * Creations are logged in the insert transaction; calls and completions are
+ * numbered in memory and written behind in batches like the ticket rows.
+ */
+@Repository
+@Profile("eventlog")
+public class EventLogTicketPersistence extends InMemoryTicketPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLogTicketPersistence.class);
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String INSERT_EVENT = """
+            INSERT INTO ticket_events (seq, ticket_id, queue, state, counter, priority, number, created_at, at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final JpaTicketRepository repo;
+    private final TransactionTemplate transactions;
+    private final ScheduledExecutorService snapshotter;
+    private final ConcurrentLinkedQueue<LogEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicLong seq = new AtomicLong();
+    // Transitions share the lock; a snapshot takes it exclusively to copy a consistent cut.
+    private final ReentrantReadWriteLock cut = new ReentrantReadWriteLock();
+
+    @Value("${tickets.eventlog.snapshot-interval-ms:60000}")
+    private long snapshotIntervalMs;
+
+    @Value("${tickets.eventlog.batch-size:500}")
+    private int eventBatchSize;
+
+    public EventLogTicketPersistence(JpaTicketRepository repo, BackgroundThreads threads, JdbcTemplate jdbc,
+                                     PlatformTransactionManager transactionManager) {
+        super(repo, threads, jdbc);
+        this.repo = repo;
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(threads.named("tickets-snapshot"));
+    }
+
+    @Override
+    public void rebuild() {
+        super.rebuild();
+        snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void load() {
+        long start = System.nanoTime();
+        // Insertion order is restore order, so the latest CALLED ticket of a queue wins.
+        Map<Long, Ticket> live = new LinkedHashMap<>();
+        Set<Long> completed = new HashSet<>();
+        long[] cursor = {0, 0};
+        jdbc.query("SELECT last_seq, max_ticket_id, tickets FROM queue_snapshots ORDER BY id DESC LIMIT 1", rs -> {
+            cursor[0] = rs.getLong("last_seq");
+            cursor[1] = rs.getLong("max_ticket_id");
+            for (Ticket ticket : decode(rs.getBytes("tickets"))) live.put(ticket.getId(), ticket);
+        });
+        long snapshotSeq = cursor[0];
+        long snapshotTickets = live.size();
+        // Inside a transaction so the driver honours the fetch size instead of buffering the whole tail.
+        transactions.executeWithoutResult(status -> jdbc.query(connection -> {
+            var statement = connection.prepareStatement("""
+                    SELECT seq, ticket_id, queue, state, counter, priority, number, created_at, at
+                    FROM ticket_events WHERE seq > ? ORDER BY seq
+                    """);
+            statement.setFetchSize(1000);
+            statement.setLong(1, snapshotSeq);
+            return statement;
+        }, rs -> {
+            cursor[0] = rs.getLong("seq");
+            long id = rs.getLong("ticket_id");
+            cursor[1] = Math.max(cursor[1], id);
+            TicketState state = TicketState.values()[rs.getInt("state")];
+            if (state == COMPLETED) {
+                live.remove(id);
+                completed.add(id);
+            } else if (!completed.contains(id)) {
+                // Racing calls can log a completion before the call it ends; a completed ticket stays completed.
+                live.remove(id);
+                live.put(id, new Ticket(id, rs.getString("queue"), state, rs.getString("counter"),
+                        (Integer) rs.getObject("number"), TicketPriority.values()[rs.getInt("priority")],
+                        rs.getTimestamp("created_at").toInstant(),
+                        state == TicketState.CALLED ? rs.getTimestamp("at").toInstant() : null, null));
+            }
+        }));
+        long tail = cursor[0] - snapshotSeq;
+
+        Long maxTicketId = jdbc.queryForObject("SELECT coalesce(max(id), 0) FROM tickets", Long.class);
+        if (maxTicketId != null && maxTicketId > cursor[1]) {
+            // Tickets were issued in another mode, the log does not know them: fall back to the scan once.
+            log.info("Event log is behind the tickets table (max id {} > {}), rebuilding from a table scan",
+                    maxTicketId, cursor[1]);
+            super.load();
+            seq.set(cursor[0]);
+            snapshot();
+            return;
+        }
+        live.values().forEach(this::restore);
+        seq.set(cursor[0]);
+        log.info("Recovered {} live tickets from snapshot at seq {} ({} tickets) plus {} events in {} ms",
+                live.size(), snapshotSeq, snapshotTickets, tail, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public void saveTicket(Ticket ticket) throws TicketPersistenceException {
+        cut.readLock().lock();
+        try {
+            super.saveTicket(ticket);
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveTickets(List<Ticket> tickets) throws TicketPersistenceException {
+        cut.readLock().lock();
+        try {
+            super.saveTickets(tickets);
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Ticket CallNextTicket(String queue, String counter) throws TicketNotFoundException {
+        cut.readLock().lock();
+        try {
+            return super.CallNextTicket(queue, counter);
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Ticket callTicket(String queue, long id, String counter) throws TicketNotFoundException {
+        cut.readLock().lock();
+        try {
+            return super.callTicket(queue, id, counter);
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected Ticket insert(Ticket ticket) {
+        return insertAll(List.of(ticket)).get(0);
+    }
+
+    @Override
+    protected List<Ticket> insertAll(List<Ticket> tickets) {
+        return transactions.execute(status -> {
+            List<Ticket> saved = repo.saveAll(tickets);
+            List<LogEvent> created = new ArrayList<>(saved.size());
+            for (Ticket ticket : saved) created.add(LogEvent.of(seq.incrementAndGet(), ticket));
+            append(created);
+            return saved;
+        });
+    }
+
+    @Override
+    protected void markDirty(Ticket ticket) {
+        pendingEvents.add(LogEvent.of(seq.incrementAndGet(), ticket));
+        super.markDirty(ticket);
+    }
+
+    @Override
+    protected boolean flush() {
+        List<LogEvent> batch = new ArrayList<>(eventBatchSize);
+        LogEvent event;
+        while (batch.size() < eventBatchSize && (event = pendingEvents.poll()) != null) batch.add(event);
+        if (!batch.isEmpty()) {
+            try {
+                append(batch);
+            } catch (RuntimeException e) {
+                // seq is explicit, so re-appending out of order is harmless.
+                log.error("Appending {} ticket events failed, retrying", batch.size(), e);
+                pendingEvents.addAll(batch);
+                return false;
+            }
+        }
+        return super.flush();
+    }
+
+    @Override
+    public void shutdown() {
+        snapshotter.shutdown();
+        super.shutdown();
+        while (!pendingEvents.isEmpty() && flush()) ;
+    }
+
+    void snapshot() {
+        List<Ticket> tickets = new ArrayList<>();
+        long lastSeq;
+        cut.writeLock().lock();
+        try {
+            lastSeq = seq.get();
+            forEachLiveTicket(ticket -> tickets.add(new Ticket(ticket.getId(), ticket.getQueue(), ticket.getState(),
+                    ticket.getCounter(), ticket.getNumber(), ticket.getPriority(), ticket.getCreatedAt(),
+                    ticket.getCalledAt(), null)));
+        } finally {
+            cut.writeLock().unlock();
+        }
+        try {
+            long start = System.nanoTime();
+            Long maxTicketId = jdbc.queryForObject("SELECT coalesce(max(id), 0) FROM tickets", Long.class);
+            byte[] encoded = encode(tickets);
+            jdbc.update("INSERT INTO queue_snapshots (last_seq, max_ticket_id, tickets) VALUES (?, ?, ?)",
+                    lastSeq, maxTicketId, encoded);
+            jdbc.update("DELETE FROM queue_snapshots WHERE id < (SELECT max(id) - 1 FROM queue_snapshots)");
+            log.debug("Snapshot of {} live tickets at seq {} ({} bytes) in {} ms", tickets.size(), lastSeq,
+                    encoded.length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("Queue snapshot at seq {} failed", lastSeq, e);
+        }
+    }
+
+    private void append(List<LogEvent> events) {
+        jdbc.batchUpdate(INSERT_EVENT, events, events.size(), (statement, event) -> {
+            statement.setLong(1, event.seq());
+            statement.setLong(2, event.ticketId());
+            statement.setString(3, event.queue());
+            statement.setInt(4, event.state().ordinal());
+            statement.setString(5, event.counter());
+            statement.setInt(6, event.priority().ordinal());
+            statement.setObject(7, event.number());
+            statement.setTimestamp(8, Timestamp.from(event.createdAt()));
+            statement.setTimestamp(9, Timestamp.from(event.at()));
+        });
+    }
+
+    static byte[] encode(List<Ticket> tickets) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(tickets.size() * 48 + 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(tickets.size());
+            for (Ticket ticket : tickets) {
+                out.writeLong(ticket.getId());
+                out.writeUTF(ticket.getQueue());
+                out.writeByte(ticket.getState().ordinal());
+                out.writeBoolean(ticket.getCounter() != null);
+                if (ticket.getCounter() != null) out.writeUTF(ticket.getCounter());
+                out.writeInt(ticket.getNumber() != null ? ticket.getNumber() : Integer.MIN_VALUE);
+                out.writeByte(ticket.getPriority().ordinal());
+                writeInstant(out, ticket.getCreatedAt());
+                out.writeBoolean(ticket.getCalledAt() != null);
+                if (ticket.getCalledAt() != null) writeInstant(out, ticket.getCalledAt());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Version 1 snapshots, taken before tickets had a called time, are still readable.
+    static List<Ticket> decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            int version = in.readInt();
+            if (version != 1 && version != SNAPSHOT_VERSION) {
+                throw new IllegalStateException("Unknown snapshot version " + version);
+            }
+            int size = in.readInt();
+            List<Ticket> tickets = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long id = in.readLong();
+                String queue = in.readUTF();
+                TicketState state = TicketState.values()[in.readByte()];
+                String counter = in.readBoolean() ? in.readUTF() : null;
+                int number = in.readInt();
+                TicketPriority priority = TicketPriority.values()[in.readByte()];
+                Instant createdAt = readInstant(in);
+                Instant calledAt = version > 1 && in.readBoolean() ? readInstant(in) : null;
+                tickets.add(new Ticket(id, queue, state, counter, number == Integer.MIN_VALUE ? null : number,
+                        priority, createdAt, calledAt, null));
+            }
+            return tickets;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+
+    // at is when the ticket reached its state, the same time stored on the ticket row.
+    private record LogEvent(long seq, long ticketId, String queue, TicketState state, String counter,
+                            TicketPriority priority, Integer number, Instant createdAt, Instant at) {
+
+        static LogEvent of(long seq, Ticket ticket) {
+            return new LogEvent(seq, ticket.getId(), ticket.getQueue(), ticket.getState(), ticket.getCounter(),
+                    ticket.getPriority(), ticket.getNumber(), ticket.getCreatedAt(),
+                    Objects.requireNonNullElseGet(ticket.reachedAt(ticket.getState()), Ticket::now));
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.config.BackgroundThreads;
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static edu.eci.arsw.tickets.model.TicketState.CALLED;
+import static edu.eci.arsw.tickets.model.TicketState.COMPLETED;
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+
+/**
+ * Keeps the live queue (waiting tickets plus the CALLED one) in memory and
+ * writes state changes behind to Postgres in batches. Inserts still go to the
+ * database synchronously because the id comes from the sequence.
+ */
+@Repository
+@Profile("hotqueue & !eventlog")
+public class InMemoryTicketPersistence implements TicketPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryTicketPersistence.class);
+
+    private final JpaTicketRepository repo;
+    private final TicketHistoryQuery history;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final Map<String, QueueState> queues = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<Ticket> pendingWrites = new ConcurrentLinkedDeque<>();
+    private final Map<Long, Ticket> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    @Value("${tickets.hotqueue.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${tickets.hotqueue.batch-size:200}")
+    private int batchSize;
+
+    public InMemoryTicketPersistence(JpaTicketRepository repo, BackgroundThreads threads, JdbcTemplate jdbc) {
+        this.repo = repo;
+        this.history = new TicketHistoryQuery(jdbc);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threads.named("tickets-write-behind"));
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        load();
+        queues.forEach((name, q) -> log.info("Hot queue {} rebuilt: {} waiting, called={}", name,
+                q.waiting.size(), q.called.get() == null ? "none" : q.called.get().getId()));
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Full table scan; subclasses can recover the live queue from somewhere cheaper.
+    protected void load() {
+        for (Ticket ticket : repo.findAll()) restore(ticket);
+    }
+
+    protected void restore(Ticket ticket) {
+        if (ticket.getState() == CREATED) queue(ticket.getQueue()).waiting.put(ticket.getId(), ticket);
+        else if (ticket.getState() == CALLED) queue(ticket.getQueue()).called.set(ticket);
+    }
+
+    // Visits the CALLED and waiting tickets of every queue.
+    protected void forEachLiveTicket(Consumer<Ticket> action) {
+        for (QueueState q : queues.values()) {
+            Optional.ofNullable(q.called.get()).ifPresent(action);
+            q.waiting.values().forEach(action);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (!pendingWrites.isEmpty() && flush()) ;
+    }
+
+    @Override
+    public void saveTicket(Ticket ticket) throws TicketPersistenceException {
+        ticket.setNumber(repo.reserveNumbers(ticket.getQueue(), 1));
+        enqueue(insert(ticket));
+    }
+
+    @Override
+    public void saveTickets(List<Ticket> tickets) throws TicketPersistenceException {
+        Map<String, List<Ticket>> byQueue = new TreeMap<>(tickets.stream().collect(Collectors.groupingBy(Ticket::getQueue)));
+        byQueue.forEach((queue, inQueue) -> {
+            int number = repo.reserveNumbers(queue, inQueue.size()) - inQueue.size();
+            for (Ticket ticket : inQueue) ticket.setNumber(++number);
+        });
+        for (Ticket ticket : insertAll(tickets)) enqueue(ticket);
+    }
+
+    protected Ticket insert(Ticket ticket) {
+        return repo.save(ticket);
+    }
+
+    protected List<Ticket> insertAll(List<Ticket> tickets) {
+        return repo.saveAll(tickets);
+    }
+
+    // Like promoteIfIdle: an idle queue calls its lowest waiting id, which after a restore need not be this ticket.
+    private void enqueue(Ticket ticket) {
+        QueueState q = queue(ticket.getQueue());
+        q.waiting.put(ticket.getId(), ticket);
+        if (q.called.get() != null) return;
+        q.calls.lock();
+        try {
+            if (q.called.get() != null) return;
+            Map.Entry<Long, Ticket> head = q.waiting.pollFirstEntry();
+            if (head == null) return;
+            Ticket next = head.getValue();
+            next.setState(CALLED);
+            next.setCalledAt(Ticket.now());
+            q.called.set(next);
+            markDirty(next);
+        } finally {
+            q.calls.unlock();
+        }
+    }
+
+    @Override
+    public Ticket getCalledTicket(String queue) throws TicketNotFoundException {
+        Ticket ticket = queue(queue).called.get();
+        if (ticket == null) throw new TicketNotFoundException(
+                "Ticket not found: %s in queue %s".formatted(CALLED, queue));
+        return ticket;
+    }
+
+    @Override
+    public Ticket getTicketById(long id) throws TicketNotFoundException {
+        Ticket ticket = live(id);
+        if (ticket != null) return ticket;
+        return repo.findById(id).orElseThrow(() -> new TicketNotFoundException(
+                "Ticket not found: " + id));
+    }
+
+    @Override
+    public List<Ticket> getTickets(String queue, TicketState state, long afterId, int limit) {
+        QueueState q = queue(queue);
+        if (state == CREATED) {
+            return q.waiting.tailMap(afterId, false).values().stream().limit(limit).toList();
+        }
+        if (state == CALLED) {
+            Ticket ticket = q.called.get();
+            return ticket != null && ticket.getId() > afterId ? List.of(ticket) : List.of();
+        }
+        List<Ticket> page = new ArrayList<>(limit);
+        long cursor = afterId;
+        while (page.size() < limit) {
+            List<Ticket> chunk = repo.findByQueueAndIdGreaterThanOrderByIdAsc(queue, cursor, Limit.of(limit));
+            for (Ticket stored : chunk) {
+                Ticket ticket = overlay(q, stored);
+                if ((state == null || ticket.getState() == state) && page.size() < limit) page.add(ticket);
+                cursor = stored.getId();
+            }
+            if (chunk.size() < limit) break;
+        }
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTicket(String queue, TicketState state, long afterId, Consumer<Ticket> action) {
+        QueueState q = queue(queue);
+        if (state == CREATED) {
+            q.waiting.tailMap(afterId, false).values().forEach(action);
+            return;
+        }
+        if (state == CALLED) {
+            Optional.ofNullable(q.called.get()).filter(ticket -> ticket.getId() > afterId).ifPresent(action);
+            return;
+        }
+        try (Stream<Ticket> tickets = repo.streamByQueueAndIdGreaterThanOrderByIdAsc(queue, afterId)) {
+            tickets.forEach(stored -> {
+                Ticket ticket = overlay(q, stored);
+                if (state == null || ticket.getState() == state) action.accept(ticket);
+                entityManager.detach(stored);
+            });
+        }
+    }
+
+    // Stored page merged with the transitions still waiting for the write-behind.
+    @Override
+    public List<Ticket> getHistory(String queue, TicketState reached, Instant from, Instant to, long afterId,
+                                   int limit) {
+        Map<Long, Ticket> page = new HashMap<>();
+        for (Ticket stored : history.find(queue, reached, from, to, afterId, limit)) page.put(stored.getId(), stored);
+        for (Ticket pending : dirty.values()) {
+            if (TicketHistoryQuery.matches(pending, queue, reached, from, to, afterId)) page.put(pending.getId(), pending);
+        }
+        return page.values().stream().sorted(TicketHistoryQuery.order(reached)).limit(limit).toList();
+    }
+
+    @Override
+    public Ticket CallNextTicket(String queue, String counter) throws TicketNotFoundException {
+        QueueState q = queue(queue);
+        q.calls.lock();
+        try {
+            Map.Entry<Long, Ticket> head = q.waiting.pollFirstEntry();
+            if (head == null) throw new TicketNotFoundException(
+                    "Ticket not found: %s in queue %s".formatted(CREATED, queue));
+            return call(q, head.getValue(), counter);
+        } finally {
+            q.calls.unlock();
+        }
+    }
+
+    @Override
+    public Ticket callTicket(String queue, long id, String counter) throws TicketNotFoundException {
+        QueueState q = queue(queue);
+        q.calls.lock();
+        try {
+            Ticket next = q.waiting.remove(id);
+            if (next == null) throw new TicketNotFoundException(
+                    "Ticket not found: %s %d in queue %s".formatted(CREATED, id, queue));
+            return call(q, next, counter);
+        } finally {
+            q.calls.unlock();
+        }
+    }
+
+    // Runs under the queue's call lock: two calls that took tickets from waiting and then swapped the CALLED
+    // slot in the opposite order would leave the older ticket CALLED and the newer one COMPLETED.
+    private Ticket call(QueueState q, Ticket next, String counter) {
+        Instant now = Ticket.now();
+        next.setState(CALLED);
+        next.setCounter(counter);
+        next.setCalledAt(now);
+        Ticket current = q.called.getAndSet(next);
+        if (current != null) {
+            current.setState(COMPLETED);
+            current.setCompletedAt(now);
+            markDirty(current);
+        }
+        markDirty(next);
+        return next;
+    }
+
+    @Override
+    public long countTickets(TicketState state) {
+        return switch (state) {
+            case CREATED -> queues.values().stream().mapToLong(q -> q.waiting.size()).sum();
+            case CALLED -> queues.values().stream().filter(q -> q.called.get() != null).count();
+            case COMPLETED -> repo.countByState(COMPLETED);
+        };
+    }
+
+    private QueueState queue(String name) {
+        return queues.computeIfAbsent(name, n -> new QueueState());
+    }
+
+    private Ticket overlay(QueueState q, Ticket stored) {
+        Ticket ticket = q.called.get();
+        if (ticket != null && ticket.getId() == stored.getId()) return ticket;
+        ticket = q.waiting.get(stored.getId());
+        if (ticket != null) return ticket;
+        ticket = dirty.get(stored.getId());
+        return ticket != null ? ticket : stored;
+    }
+
+    private Ticket live(long id) {
+        for (QueueState q : queues.values()) {
+            Ticket ticket = q.called.get();
+            if (ticket != null && ticket.getId() == id) return ticket;
+            ticket = q.waiting.get(id);
+            if (ticket != null) return ticket;
+        }
+        return dirty.get(id);
+    }
+
+    // Runs under the queue's call lock. The flusher gets a copy taken here, since request threads keep changing
+    // the live ticket while it waits to be written.
+    protected void markDirty(Ticket ticket) {
+        dirty.put(ticket.getId(), ticket);
+        pendingWrites.add(new Ticket(ticket.getId(), ticket.getQueue(), ticket.getState(), ticket.getCounter(),
+                ticket.getNumber(), ticket.getPriority(), ticket.getCreatedAt(), ticket.getCalledAt(),
+                ticket.getCompletedAt()));
+    }
+
+    protected boolean flush() {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        Ticket ticket;
+        while (batch.size() < batchSize && (ticket = pendingWrites.poll()) != null) {
+            batch.add(ticket);
+        }
+        if (batch.isEmpty()) return true;
+        try {
+            repo.saveAll(batch);
+        } catch (RuntimeException e) {
+            // Back at the head, in order: a later batch written first could promote the next ticket before this
+            // one completes the previous CALLED ticket, and tickets_one_called_per_queue would reject it again.
+            log.error("Write-behind flush of {} tickets failed, retrying", batch.size(), e);
+            for (int i = batch.size() - 1; i >= 0; i--) pendingWrites.addFirst(batch.get(i));
+            return false;
+        }
+        // COMPLETED is final, so the live ticket cannot change after this copy was taken.
+        for (Ticket written : batch) {
+            if (written.getState() == COMPLETED) dirty.remove(written.getId());
+        }
+        return true;
+    }
+
+    private static final class QueueState {
+        final ConcurrentSkipListMap<Long, Ticket> waiting = new ConcurrentSkipListMap<>();
+        final AtomicReference<Ticket> called = new AtomicReference<>();
+        final ReentrantLock calls = new ReentrantLock();
+    }
+}
@@ -2,10 +2,108 @@ package edu.eci.arsw.tickets.persistence;
 
 import edu.eci.arsw.tickets.model.Ticket;
 import edu.eci.arsw.tickets.model.TicketState;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface JpaTicketRepository extends JpaRepository<Ticket, Long> {
-    Optional<Ticket> findTicketByState(TicketState state);
+    // State as a literal so the planner can use the partial index behind tickets_one_called_per_queue.
+    @Query("SELECT t FROM Ticket t WHERE t.queue = :queue AND t.state = edu.eci.arsw.tickets.model.TicketState.CALLED")
+    Optional<Ticket> findCalledTicket(@Param("queue") String queue);
+
+    long countByState(TicketState state);
+
+    List<Ticket> findByQueueAndIdGreaterThanOrderByIdAsc(String queue, long afterId, Limit limit);
+
+    List<Ticket> findByQueueAndStateAndIdGreaterThanOrderByIdAsc(String queue, TicketState state, long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Ticket> streamByQueueAndIdGreaterThanOrderByIdAsc(String queue, long afterId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Ticket> streamByQueueAndStateAndIdGreaterThanOrderByIdAsc(String queue, TicketState state, long afterId);
+
+    // Serializes transitions of one queue until the surrounding transaction ends.
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(:queue))", nativeQuery = true)
+    int lockQueue(@Param("queue") String queue);
+
+    // Completes the CALLED ticket and promotes the lowest-id CREATED one in a single statement.
+    @Query(value = """
+            WITH next AS (
+                SELECT id FROM tickets WHERE queue = :queue AND state = 0 ORDER BY id LIMIT 1 FOR UPDATE
+            ), done AS (
+                UPDATE tickets SET state = 2, completed_at = :at
+                WHERE queue = :queue AND state = 1 AND EXISTS (SELECT 1 FROM next)
+            )
+            UPDATE tickets SET state = 1, counter = :counter, called_at = :at FROM next WHERE tickets.id = next.id
+            RETURNING tickets.*
+            """, nativeQuery = true)
+    Optional<Ticket> callNext(@Param("queue") String queue, @Param("counter") String counter,
+                              @Param("at") Instant at);
+
+    // Same as callNext for a ticket chosen by the caller; empty when it is no longer waiting.
+    @Query(value = """
+            WITH next AS (
+                SELECT id FROM tickets WHERE id = :id AND queue = :queue AND state = 0 FOR UPDATE
+            ), done AS (
+                UPDATE tickets SET state = 2, completed_at = :at
+                WHERE queue = :queue AND state = 1 AND EXISTS (SELECT 1 FROM next)
+            )
+            UPDATE tickets SET state = 1, counter = :counter, called_at = :at FROM next WHERE tickets.id = next.id
+            RETURNING tickets.*
+            """, nativeQuery = true)
+    Optional<Ticket> callTicket(@Param("queue") String queue, @Param("id") long id, @Param("counter") String counter,
+                                @Param("at") Instant at);
+
+    // Promotes the lowest-id CREATED ticket when the queue has nobody CALLED yet.
+    @Query(value = """
+            UPDATE tickets SET state = 1, called_at = :at
+            WHERE id = (SELECT min(id) FROM tickets WHERE queue = :queue AND state = 0)
+              AND NOT EXISTS (SELECT 1 FROM tickets WHERE queue = :queue AND state = 1)
+            RETURNING id
+            """, nativeQuery = true)
+    Optional<Long> promoteIfIdle(@Param("queue") String queue, @Param("at") Instant at);
+
+    // Reserves count visible numbers for the queue and returns the last one; numbering restarts each day.
+    @Transactional
+    @Query(value = """
+            INSERT INTO queue_counters (queue, service_day, last_number) VALUES (:queue, current_date, :count)
+            ON CONFLICT (queue) DO UPDATE SET
+                last_number = CASE WHEN queue_counters.service_day = current_date
+                                   THEN queue_counters.last_number + :count ELSE :count END,
+                service_day = current_date
+            RETURNING last_number
+            """, nativeQuery = true)
+    int reserveNumbers(@Param("queue") String queue, @Param("count") int count);
+
+    // Moves one chunk of COMPLETED tickets from earlier service days to tickets_archive.
+    // SKIP LOCKED keeps it from waiting on rows a call-next is touching.
+    @Modifying
+    @Transactional
+    @Query(value = """
+            WITH moved AS (
+                DELETE FROM tickets WHERE id IN (
+                    SELECT id FROM tickets
+                    WHERE state = 2 AND service_day < current_date
+                    ORDER BY service_day, id LIMIT :chunk
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING id, state, queue, counter, number, service_day, priority, created_at, called_at, completed_at
+            )
+            INSERT INTO tickets_archive (id, state, queue, counter, number, service_day, priority, created_at,
+                                         called_at, completed_at)
+            SELECT id, state, queue, counter, number, service_day, priority, created_at, called_at, completed_at
+            FROM moved
+            """, nativeQuery = true)
+    int archiveCompleted(@Param("chunk") int chunk);
 }
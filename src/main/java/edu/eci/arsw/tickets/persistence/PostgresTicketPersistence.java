@@ -1,42 +1,91 @@
 package edu.eci.arsw.tickets.persistence;
 
 import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static edu.eci.arsw.tickets.model.TicketState.CALLED;
-import static edu.eci.arsw.tickets.model.TicketState.COMPLETED;
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
 
 @Repository
 @Primary
+@Profile("!hotqueue & !eventlog")
 public class PostgresTicketPersistence implements TicketPersistence {
 
     private final JpaTicketRepository repo;
+    private final TicketHistoryQuery history;
 
-    public PostgresTicketPersistence(JpaTicketRepository repo) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public PostgresTicketPersistence(JpaTicketRepository repo, JdbcTemplate jdbc) {
         this.repo = repo;
+        this.history = new TicketHistoryQuery(jdbc);
     }
 
     @Override
+    @Transactional
     public void saveTicket(Ticket ticket) throws TicketPersistenceException {
+        ticket.setNumber(repo.reserveNumbers(ticket.getQueue(), 1));
+        ticket = repo.saveAndFlush(ticket);
 
-        ticket = repo.save(ticket);
-
-        if (ticket.getId() == 1){
+        repo.lockQueue(ticket.getQueue());
+        Instant now = Ticket.now();
+        Optional<Long> promoted = repo.promoteIfIdle(ticket.getQueue(), now);
+        if (promoted.isPresent() && promoted.get() == ticket.getId()) {
             ticket.setState(CALLED);
-            repo.save(ticket);
+            ticket.setCalledAt(now);
         }
     }
 
     @Override
-    public Ticket getCalledTicket() throws TicketNotFoundException {
-        return repo.findTicketByState(CALLED)
+    @Transactional
+    public void saveTickets(List<Ticket> tickets) throws TicketPersistenceException {
+        TreeSet<String> queues = new TreeSet<>(tickets.stream().map(Ticket::getQueue).toList());
+        for (String queue : queues) assignNumbers(queue, tickets);
+        repo.saveAllAndFlush(tickets);
+
+        Map<Long, Ticket> byId = new HashMap<>();
+        for (Ticket ticket : tickets) byId.put(ticket.getId(), ticket);
+        for (String queue : queues) {
+            repo.lockQueue(queue);
+            Instant now = Ticket.now();
+            repo.promoteIfIdle(queue, now)
+                    .map(byId::get)
+                    .ifPresent(ticket -> {
+                        ticket.setState(CALLED);
+                        ticket.setCalledAt(now);
+                    });
+        }
+    }
+
+    private void assignNumbers(String queue, List<Ticket> tickets) {
+        List<Ticket> inQueue = tickets.stream().filter(t -> t.getQueue().equals(queue)).toList();
+        int number = repo.reserveNumbers(queue, inQueue.size()) - inQueue.size();
+        for (Ticket ticket : inQueue) ticket.setNumber(++number);
+    }
+
+    @Override
+    public Ticket getCalledTicket(String queue) throws TicketNotFoundException {
+        return repo.findCalledTicket(queue)
                 .orElseThrow(() -> new TicketNotFoundException(
-                        "Ticket not found: %s".formatted(CALLED)));
+                        "Ticket not found: %s in queue %s".formatted(CALLED, queue)));
     }
 
     @Override
@@ -48,18 +97,49 @@ public class PostgresTicketPersistence implements TicketPersistence {
     }
 
     @Override
-    public Set<Ticket> getAllTickets() {
-        return new HashSet<>(repo.findAll());
+    public List<Ticket> getTickets(String queue, TicketState state, long afterId, int limit) {
+        return state == null
+                ? repo.findByQueueAndIdGreaterThanOrderByIdAsc(queue, afterId, Limit.of(limit))
+                : repo.findByQueueAndStateAndIdGreaterThanOrderByIdAsc(queue, state, afterId, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTicket(String queue, TicketState state, long afterId, Consumer<Ticket> action) {
+        try (Stream<Ticket> tickets = state == null
+                ? repo.streamByQueueAndIdGreaterThanOrderByIdAsc(queue, afterId)
+                : repo.streamByQueueAndStateAndIdGreaterThanOrderByIdAsc(queue, state, afterId)) {
+            tickets.forEach(ticket -> {
+                action.accept(ticket);
+                entityManager.detach(ticket);
+            });
+        }
+    }
+
+    @Override
+    public List<Ticket> getHistory(String queue, TicketState reached, Instant from, Instant to, long afterId,
+                                   int limit) {
+        return history.find(queue, reached, from, to, afterId, limit);
+    }
+
+    @Override
+    @Transactional
+    public Ticket CallNextTicket(String queue, String counter) throws TicketNotFoundException {
+        repo.lockQueue(queue);
+        return repo.callNext(queue, counter, Ticket.now()).orElseThrow(() -> new TicketNotFoundException(
+                "Ticket not found: %s in queue %s".formatted(CREATED, queue)));
+    }
+
+    @Override
+    @Transactional
+    public Ticket callTicket(String queue, long id, String counter) throws TicketNotFoundException {
+        repo.lockQueue(queue);
+        return repo.callTicket(queue, id, counter, Ticket.now()).orElseThrow(() -> new TicketNotFoundException(
+                "Ticket not found: %s %d in queue %s".formatted(CREATED, id, queue)));
     }
 
     @Override
-    public void CallNextTicket() throws TicketNotFoundException {
-        Ticket ticket = getCalledTicket();
-        long nextTicketId = ticket.getId() + 1;
-        ticket.setState(COMPLETED);
-        repo.save(ticket);
-        ticket = getTicketById(nextTicketId);
-        ticket.setState(CALLED);
-        repo.save(ticket);
+    public long countTickets(TicketState state) {
+        return repo.countByState(state);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketPriority;
+import edu.eci.arsw.tickets.model.TicketState;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keyset pages of the tickets of a queue that reached a state within a time
+ * range, ordered by that transition time and id, from the live table and
+ * tickets_archive. Each side reads one (queue, time, id) index range.
+ */
+final class TicketHistoryQuery {
+
+    private static final String COLUMNS =
+            "id, queue, state, counter, number, priority, created_at, called_at, completed_at";
+
+    private final JdbcTemplate jdbc;
+
+    TicketHistoryQuery(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    List<Ticket> find(String queue, TicketState reached, Instant from, Instant to, long afterId, int limit) {
+        String column = column(reached);
+        String side = """
+                (SELECT %1$s FROM %2$s
+                 WHERE queue = ? AND %3$s IS NOT NULL AND (%3$s, id) > (?, ?) AND %3$s < ?
+                 ORDER BY %3$s, id LIMIT ?)
+                """;
+        String sql = "SELECT * FROM (" + side.formatted(COLUMNS, "tickets", column)
+                + " UNION ALL " + side.formatted(COLUMNS, "tickets_archive", column)
+                + ") history ORDER BY " + column + ", id LIMIT ?";
+        Timestamp start = Timestamp.from(from);
+        Timestamp end = Timestamp.from(to);
+        return jdbc.query(sql, (rs, row) -> ticket(rs),
+                queue, start, afterId, end, limit, queue, start, afterId, end, limit, limit);
+    }
+
+    // Same filter as find, for tickets whose latest transition is only in memory yet.
+    static boolean matches(Ticket ticket, String queue, TicketState reached, Instant from, Instant to, long afterId) {
+        Instant at = ticket.reachedAt(reached);
+        if (at == null || !ticket.getQueue().equals(queue) || !at.isBefore(to)) return false;
+        int cmp = at.compareTo(from);
+        return cmp > 0 || cmp == 0 && ticket.getId() > afterId;
+    }
+
+    static Comparator<Ticket> order(TicketState reached) {
+        return Comparator.comparing((Ticket ticket) -> ticket.reachedAt(reached)).thenComparingLong(Ticket::getId);
+    }
+
+    private static String column(TicketState reached) {
+        return switch (reached) {
+            case CREATED -> "created_at";
+            case CALLED -> "called_at";
+            case COMPLETED -> "completed_at";
+        };
+    }
+
+    private static Ticket ticket(ResultSet rs) throws SQLException {
+        return new Ticket(rs.getLong("id"), rs.getString("queue"), TicketState.values()[rs.getInt("state")],
+                rs.getString("counter"), (Integer) rs.getObject("number"),
+                TicketPriority.values()[rs.getInt("priority")], instant(rs, "created_at"),
+                instant(rs, "called_at"), instant(rs, "completed_at"));
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
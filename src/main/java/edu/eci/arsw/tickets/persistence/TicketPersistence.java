@@ -1,18 +1,37 @@
 package edu.eci.arsw.tickets.persistence;
 
 import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
 
-import java.util.Set;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface TicketPersistence {
 
     void saveTicket(Ticket ticket) throws TicketPersistenceException;
 
-    Ticket getCalledTicket() throws TicketNotFoundException;
+    // Inserts every ticket in one batch; tickets are updated in place with their ids and states.
+    void saveTickets(List<Ticket> tickets) throws TicketPersistenceException;
+
+    Ticket getCalledTicket(String queue) throws TicketNotFoundException;
 
     Ticket getTicketById(long id) throws TicketNotFoundException;
 
-    Set<Ticket> getAllTickets();
+    // Keyset page ordered by id; a null state means every state.
+    List<Ticket> getTickets(String queue, TicketState state, long afterId, int limit);
+
+    // Visits tickets with an id above afterId, ordered by id, without materializing the whole table.
+    void forEachTicket(String queue, TicketState state, long afterId, Consumer<Ticket> action);
+
+    // Keyset page of the tickets that reached the state in [from, to), ordered by that time then id, archive
+    // included. The next page starts at the last ticket's time with its id as afterId.
+    List<Ticket> getHistory(String queue, TicketState reached, Instant from, Instant to, long afterId, int limit);
+
+    Ticket CallNextTicket(String queue, String counter) throws TicketNotFoundException;
+
+    // Calls a specific waiting ticket picked by the scheduling policy; not found once it left CREATED.
+    Ticket callTicket(String queue, long id, String counter) throws TicketNotFoundException;
 
-    void CallNextTicket() throws TicketNotFoundException;
+    long countTickets(TicketState state);
 }
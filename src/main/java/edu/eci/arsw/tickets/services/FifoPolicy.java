@@ -0,0 +1,20 @@
+package edu.eci.arsw.tickets.services;
+
+import edu.eci.arsw.tickets.model.TicketPriority;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "tickets.scheduling", name = "policy", havingValue = "fifo", matchIfMissing = true)
+public class FifoPolicy implements NextTicketPolicy {
+
+    @Override
+    public long rank(long id, TicketPriority priority, long createdAtMillis) {
+        return id;
+    }
+
+    @Override
+    public boolean followsIdOrder() {
+        return true;
+    }
+}
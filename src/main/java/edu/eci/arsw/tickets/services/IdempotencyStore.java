@@ -0,0 +1,177 @@
+package edu.eci.arsw.tickets.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the outcome of create/call requests by Idempotency-Key. Finished
+ * results live in a bounded in-memory LRU with a TTL, so replays do not touch
+ * the database; the idempotency_keys table is the fallback after an eviction
+ * or restart and decides which request owns a key when several nodes or
+ * threads race for it. A claim is only held for a short lease while its
+ * request runs, so a node dying mid-request does not block the key for a whole TTL.
+ * Each key also keeps the fingerprint of the parameters it was first used
+ * with, so reusing it for a different request is rejected instead of replayed.
+ */
+@Component
+public class IdempotencyStore {
+
+    private final JdbcTemplate jdbc;
+    private final Duration ttl;
+    private final Duration lease;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter claimed;
+    private final Counter replayed;
+    private final Counter inProgress;
+    private final Counter mismatched;
+
+    public IdempotencyStore(JdbcTemplate jdbc,
+                            @Value("${tickets.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${tickets.idempotency.lease:30s}") Duration lease,
+                            @Value("${tickets.idempotency.max-entries:10000}") int maxEntries,
+                            MeterRegistry registry) {
+        this.jdbc = jdbc;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+        this.claimed = Counter.builder("tickets.idempotency.requests").tag("result", "new").register(registry);
+        this.replayed = Counter.builder("tickets.idempotency.requests").tag("result", "replayed").register(registry);
+        this.inProgress = Counter.builder("tickets.idempotency.requests").tag("result", "in_progress").register(registry);
+        this.mismatched = Counter.builder("tickets.idempotency.requests").tag("result", "mismatch").register(registry);
+        Gauge.builder("tickets.idempotency.size", this, IdempotencyStore::size).register(registry);
+    }
+
+    /**
+     * Returns the stored result for the key, {@link Result#MISMATCH} when the
+     * key was used with another fingerprint, or empty when the caller now owns
+     * the key and must {@link #complete} or {@link #release} it.
+     */
+    public Optional<Result> claim(String operation, String key, String fingerprint) {
+        Result cached = cached(operation, key, fingerprint);
+        if (cached == null) {
+            List<Integer> owned = jdbc.queryForList("""
+                    INSERT INTO idempotency_keys (operation, idempotency_key, fingerprint, expires_at)
+                    VALUES (?, ?, ?, now() + ? * interval '1 second')
+                    ON CONFLICT (operation, idempotency_key) DO UPDATE
+                        SET status = NULL, message = NULL, ticket_id = NULL, fingerprint = EXCLUDED.fingerprint,
+                            expires_at = EXCLUDED.expires_at
+                        WHERE idempotency_keys.expires_at < now()
+                    RETURNING 1
+                    """, Integer.class, operation, key, fingerprint, lease.toSeconds());
+            if (!owned.isEmpty()) {
+                put(operation, key, fingerprint, Result.IN_PROGRESS, lease);
+                claimed.increment();
+                return Optional.empty();
+            }
+            cached = jdbc.query("""
+                    SELECT status, message, ticket_id, fingerprint FROM idempotency_keys
+                    WHERE operation = ? AND idempotency_key = ?
+                    """, rs -> {
+                if (!rs.next()) return Result.IN_PROGRESS;
+                String stored = rs.getString("fingerprint");
+                if (stored != null && !stored.equals(fingerprint)) return Result.MISMATCH;
+                return new Result(rs.getInt("status"), rs.getString("message"), rs.getObject("ticket_id", Long.class));
+            }, operation, key);
+            if (!cached.inProgress() && !cached.mismatch()) put(operation, key, fingerprint, cached, ttl);
+        }
+        (cached.mismatch() ? mismatched : cached.inProgress() ? inProgress : replayed).increment();
+        return Optional.of(cached);
+    }
+
+    public void complete(String operation, String key, String fingerprint, Result result) {
+        put(operation, key, fingerprint, result, ttl);
+        jdbc.update("""
+                UPDATE idempotency_keys SET status = ?, message = ?, ticket_id = ?, expires_at = now() + ? * interval '1 second'
+                WHERE operation = ? AND idempotency_key = ?
+                """, result.status(), result.message(), result.ticketId(), ttl.toSeconds(), operation, key);
+    }
+
+    // Gives the key up after a failed request so a retry runs it again.
+    public void release(String operation, String key) {
+        lock.lock();
+        try {
+            entries.remove(operation + ":" + key);
+        } finally {
+            lock.unlock();
+        }
+        jdbc.update("DELETE FROM idempotency_keys WHERE operation = ? AND idempotency_key = ?", operation, key);
+    }
+
+    // Not at boot: expired keys can wait and startup should not queue behind this DELETE.
+    @Scheduled(fixedDelayString = "${tickets.idempotency.cleanup-interval-ms:600000}",
+            initialDelayString = "${tickets.idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        jdbc.update("DELETE FROM idempotency_keys WHERE expires_at < now()");
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Result cached(String operation, String key, String fingerprint) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(operation + ":" + key);
+            if (entry == null) return null;
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(operation + ":" + key);
+                return null;
+            }
+            return entry.fingerprint().equals(fingerprint) ? entry.result() : Result.MISMATCH;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String operation, String key, String fingerprint, Result result, Duration expiresIn) {
+        lock.lock();
+        try {
+            entries.put(operation + ":" + key,
+                    new Entry(result, fingerprint, System.currentTimeMillis() + expiresIn.toMillis()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // status 0 marks a request that is still running, -1 a key used with other parameters.
+    public record Result(int status, String message, Long ticketId) {
+        static final Result IN_PROGRESS = new Result(0, null, null);
+        public static final Result MISMATCH = new Result(-1, null, null);
+
+        public boolean inProgress() {
+            return status == 0;
+        }
+
+        public boolean mismatch() {
+            return status == -1;
+        }
+    }
+
+    private record Entry(Result result, String fingerprint, long expiresAt) {
+    }
+}
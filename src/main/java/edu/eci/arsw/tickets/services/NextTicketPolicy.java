@@ -0,0 +1,22 @@
+package edu.eci.arsw.tickets.services;
+
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketPriority;
+
+/**
+ * Decides which waiting ticket of a queue is called next: the one with the
+ * lowest rank, ties broken by id. Selected with tickets.scheduling.policy.
+ */
+public interface NextTicketPolicy {
+
+    long rank(long id, TicketPriority priority, long createdAtMillis);
+
+    default long rank(Ticket ticket) {
+        return rank(ticket.getId(), ticket.getPriority(), ticket.getCreatedAt().toEpochMilli());
+    }
+
+    // True when the rank is the id order, so the persistence can pick the head of the queue by itself.
+    default boolean followsIdOrder() {
+        return false;
+    }
+}
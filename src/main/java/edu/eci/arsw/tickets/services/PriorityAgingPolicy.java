@@ -0,0 +1,20 @@
+package edu.eci.arsw.tickets.services;
+
+import edu.eci.arsw.tickets.model.TicketPriority;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ranks by creation time minus the head start of the priority class. The rank
+ * never changes while a ticket waits, yet nobody starves: a ticket is always
+ * called before every ticket created more than the largest head start after it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "tickets.scheduling", name = "policy", havingValue = "priority")
+public class PriorityAgingPolicy implements NextTicketPolicy {
+
+    @Override
+    public long rank(long id, TicketPriority priority, long createdAtMillis) {
+        return createdAtMillis - priority.getHeadStart().toMillis();
+    }
+}
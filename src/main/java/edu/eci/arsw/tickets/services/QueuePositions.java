@@ -0,0 +1,97 @@
+package edu.eci.arsw.tickets.services;
+
+import edu.eci.arsw.tickets.events.TicketEvent;
+import edu.eci.arsw.tickets.persistence.TicketPersistence;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+
+/**
+ * Read model for the position of a waiting ticket in its queue. Each queue
+ * keeps a TicketRankIndex of its waiting tickets ranked by the configured
+ * NextTicketPolicy, so positions follow the real call order, loaded from the
+ * persistence on the first lookup and kept up to date from TicketEvents the
+ * same way as TicketScheduler's heaps.
+ */
+@Component
+public class QueuePositions {
+
+    private final TicketPersistence persistence;
+    private final NextTicketPolicy policy;
+    private final Map<String, Line> lines = new ConcurrentHashMap<>();
+
+    public QueuePositions(TicketPersistence persistence, NextTicketPolicy policy) {
+        this.persistence = persistence;
+        this.policy = policy;
+    }
+
+    // Waiting tickets of the queue that will be called before id, or -1 if id is not waiting there.
+    public int ahead(String queue, long id) {
+        Line line = line(queue);
+        line.lock.lock();
+        try {
+            return line.index.ahead(id);
+        } finally {
+            line.lock.unlock();
+        }
+    }
+
+    public int waiting(String queue) {
+        Line line = line(queue);
+        line.lock.lock();
+        try {
+            return line.index.size();
+        } finally {
+            line.lock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        Line line = lines.get(event.queue());
+        if (line == null) return;
+        line.lock.lock();
+        try {
+            // Until the first load finishes, its scan already sees every committed change.
+            if (!line.loaded) return;
+            if (event.type() == TicketEvent.Type.TICKET_CREATED && event.state() == CREATED) {
+                line.index.add(event.ticketId(), policy.rank(event.ticketId(), event.priority(), event.createdAt()));
+            } else {
+                line.index.remove(event.ticketId());
+            }
+        } finally {
+            line.lock.unlock();
+        }
+    }
+
+    // Forgets every index; they are reloaded from the persistence on the next lookup.
+    public void reset() {
+        lines.clear();
+    }
+
+    private Line line(String queue) {
+        Line line = lines.computeIfAbsent(queue, q -> new Line());
+        if (line.loaded) return line;
+        line.lock.lock();
+        try {
+            if (!line.loaded) {
+                persistence.forEachTicket(queue, CREATED, 0, ticket -> line.index.add(ticket.getId(), policy.rank(ticket)));
+                line.loaded = true;
+            }
+        } finally {
+            line.lock.unlock();
+        }
+        return line;
+    }
+
+    private static final class Line {
+        final ReentrantLock lock = new ReentrantLock();
+        final TicketRankIndex index = new TicketRankIndex();
+        volatile boolean loaded;
+    }
+}
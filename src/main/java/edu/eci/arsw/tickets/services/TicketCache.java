@@ -0,0 +1,146 @@
+package edu.eci.arsw.tickets.services;
+
+import edu.eci.arsw.tickets.events.TicketEvent;
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-through cache for the CALLED ticket of each queue and for recently
+ * read tickets. Entries are dropped on every TicketEvent that changes them;
+ * a load that raced with such an event is not stored (generation check).
+ */
+@Component
+public class TicketCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Map<String, Ticket> called = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastCalledId = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Long, Ticket> tickets;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TicketCache(@Value("${tickets.cache.enabled:true}") boolean enabled,
+                       @Value("${tickets.cache.max-entries:10000}") int maxEntries,
+                       MeterRegistry registry) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.tickets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Ticket> eldest) {
+                if (size() <= TicketCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+        FunctionCounter.builder("tickets.cache.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("tickets.cache.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        FunctionCounter.builder("tickets.cache.evictions", evictions, LongAdder::sum).register(registry);
+        Gauge.builder("tickets.cache.size", this, TicketCache::size).register(registry);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public Ticket getCalled(String queue) {
+        if (!enabled) return null;
+        Ticket ticket = called.get(queue);
+        (ticket != null ? hits : misses).increment();
+        return ticket;
+    }
+
+    // Same check as putTicket, under the lock events take, so a slow load never replaces a newer pointer.
+    public void putCalled(Ticket ticket, long loadedAt) {
+        if (!enabled) return;
+        lock.lock();
+        try {
+            if (generation.get() != loadedAt) return;
+            lastCalledId.put(ticket.getQueue(), ticket.getId());
+            called.put(ticket.getQueue(), ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Ticket getTicket(long id) {
+        if (!enabled) return null;
+        lock.lock();
+        try {
+            Ticket ticket = tickets.get(id);
+            (ticket != null ? hits : misses).increment();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putTicket(Ticket ticket, long loadedAt) {
+        if (!enabled) return;
+        lock.lock();
+        try {
+            if (generation.get() != loadedAt) return;
+            if (ticket.getState() == TicketState.CALLED) lastCalledId.put(ticket.getQueue(), ticket.getId());
+            tickets.put(ticket.getId(), ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            tickets.remove(event.ticketId());
+            if (event.type() == TicketEvent.Type.TICKET_CALLED) {
+                Long previous = lastCalledId.remove(event.queue());
+                if (previous != null) tickets.remove(previous);
+                called.remove(event.queue());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            tickets.clear();
+            called.clear();
+            lastCalledId.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return tickets.size() + called.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+}
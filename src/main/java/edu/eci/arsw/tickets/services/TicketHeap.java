@@ -0,0 +1,99 @@
+package edu.eci.arsw.tickets.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indexed binary min-heap of ticket ids by rank (ties by id). Add, poll and
+ * remove by id are O(log n). Not thread-safe.
+ */
+public final class TicketHeap {
+
+    private long[] ids = new long[16];
+    private long[] ranks = new long[16];
+    private int size;
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    public boolean add(long id, long rank) {
+        if (positions.containsKey(id)) return false;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            ranks = Arrays.copyOf(ranks, size * 2);
+        }
+        set(size, id, rank);
+        siftUp(size++);
+        return true;
+    }
+
+    public boolean remove(long id) {
+        Integer index = positions.remove(id);
+        if (index == null) return false;
+        int last = --size;
+        if (index != last) {
+            set(index, ids[last], ranks[last]);
+            siftDown(index);
+            siftUp(index);
+        }
+        return true;
+    }
+
+    // Id of the lowest ranked ticket, or -1 when empty.
+    public long peekId() {
+        return size == 0 ? -1 : ids[0];
+    }
+
+    public long peekRank() {
+        return ranks[0];
+    }
+
+    public long poll() {
+        long id = peekId();
+        if (id >= 0) remove(id);
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private boolean less(int a, int b) {
+        return ranks[a] < ranks[b] || ranks[a] == ranks[b] && ids[a] < ids[b];
+    }
+
+    private void set(int index, long id, long rank) {
+        ids[index] = id;
+        ranks[index] = rank;
+        positions.put(id, index);
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a], rank = ranks[a];
+        set(a, ids[b], ranks[b]);
+        set(b, id, rank);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(index, parent)) return;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) return;
+            if (child + 1 < size && less(child + 1, child)) child++;
+            if (!less(child, index)) return;
+            swap(index, child);
+            index = child;
+        }
+    }
+}
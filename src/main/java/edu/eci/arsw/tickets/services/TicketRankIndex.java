@@ -0,0 +1,122 @@
+package edu.eci.arsw.tickets.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Ticket ids ordered by rank (ties by id) in a treap whose nodes count their
+ * subtree, so add, remove and the number of tickets ranked before an id are
+ * all O(log n) expected. Not thread-safe.
+ */
+public final class TicketRankIndex {
+
+    private final Map<Long, Long> ranks = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    public boolean add(long id, long rank) {
+        if (ranks.putIfAbsent(id, rank) != null) return false;
+        Node[] parts = split(root, rank, id);
+        root = merge(merge(parts[0], new Node(id, rank, random.nextInt())), parts[1]);
+        return true;
+    }
+
+    public boolean remove(long id) {
+        Long rank = ranks.remove(id);
+        if (rank == null) return false;
+        root = remove(root, rank, id);
+        return true;
+    }
+
+    // Tickets ranked before id, or -1 when id is not in the index.
+    public int ahead(long id) {
+        Long rank = ranks.get(id);
+        if (rank == null) return -1;
+        int ahead = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(rank, id, node);
+            if (cmp == 0) return ahead + size(node.left);
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                ahead += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        throw new IllegalStateException("Ticket " + id + " is indexed but missing from the tree");
+    }
+
+    public boolean contains(long id) {
+        return ranks.containsKey(id);
+    }
+
+    public int size() {
+        return ranks.size();
+    }
+
+    private static int compare(long rank, long id, Node node) {
+        int cmp = Long.compare(rank, node.rank);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    // Nodes ordered before (rank, id) and the rest.
+    private static Node[] split(Node node, long rank, long id) {
+        if (node == null) return new Node[2];
+        if (compare(rank, id, node) > 0) {
+            Node[] parts = split(node.right, rank, id);
+            node.right = parts[0];
+            parts[0] = node.update();
+            return parts;
+        }
+        Node[] parts = split(node.left, rank, id);
+        node.left = parts[1];
+        parts[1] = node.update();
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static Node remove(Node node, long rank, long id) {
+        if (node == null) return null;
+        int cmp = compare(rank, id, node);
+        if (cmp == 0) return merge(node.left, node.right);
+        if (cmp < 0) node.left = remove(node.left, rank, id);
+        else node.right = remove(node.right, rank, id);
+        return node.update();
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        final long id;
+        final long rank;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(long id, long rank, int priority) {
+            this.id = id;
+            this.rank = rank;
+            this.priority = priority;
+        }
+
+        Node update() {
+            size = 1 + TicketRankIndex.size(left) + TicketRankIndex.size(right);
+            return this;
+        }
+    }
+}
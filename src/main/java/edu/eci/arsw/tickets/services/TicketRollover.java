@@ -0,0 +1,64 @@
+package edu.eci.arsw.tickets.services;
+
+import edu.eci.arsw.tickets.persistence.JpaTicketRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily rollover: moves COMPLETED tickets of earlier service days from the live
+ * table to tickets_archive, one short transaction per chunk so call-next keeps
+ * running. Visible numbers restart on their own with the new service day
+ * (see JpaTicketRepository#reserveNumbers).
+ */
+@Component
+@ConditionalOnProperty(prefix = "tickets.rollover", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TicketRollover {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketRollover.class);
+
+    private final JpaTicketRepository repo;
+    private final int chunkSize;
+    private final Timer duration;
+    private final Counter archived;
+
+    public TicketRollover(JpaTicketRepository repo,
+                          @Value("${tickets.rollover.chunk-size:5000}") int chunkSize,
+                          MeterRegistry registry) {
+        this.repo = repo;
+        this.chunkSize = chunkSize;
+        this.duration = Timer.builder("tickets.rollover").register(registry);
+        this.archived = Counter.builder("tickets.rollover.archived").register(registry);
+    }
+
+    @Scheduled(cron = "${tickets.rollover.cron:0 5 0 * * *}")
+    public Result rollover() {
+        long start = System.nanoTime();
+        long moved = 0;
+        int chunks = 0;
+        int chunk;
+        do {
+            chunk = repo.archiveCompleted(chunkSize);
+            moved += chunk;
+            chunks++;
+        } while (chunk == chunkSize);
+
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        archived.increment(moved);
+        Result result = new Result(moved, chunks, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        log.info("Ticket rollover archived {} tickets in {} chunks, {} ms", result.moved(), result.chunks(), result.millis());
+        return result;
+    }
+
+    public record Result(long moved, int chunks, long millis) {
+    }
+}
@@ -0,0 +1,103 @@
+package edu.eci.arsw.tickets.services;
+
+import edu.eci.arsw.tickets.events.TicketEvent;
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.persistence.TicketNotFoundException;
+import edu.eci.arsw.tickets.persistence.TicketPersistence;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+
+/**
+ * Picks the next ticket of a queue with the configured NextTicketPolicy. For
+ * policies other than FIFO each queue keeps an indexed heap of its waiting
+ * tickets, loaded from the persistence on first use and kept up to date from
+ * TicketEvents. Postgres stays the source of truth: the chosen id is only
+ * called if it is still CREATED there, otherwise it is dropped and the next
+ * one is tried, and an empty heap is reloaded before reporting an empty queue.
+ */
+@Component
+public class TicketScheduler {
+
+    private final TicketPersistence persistence;
+    private final NextTicketPolicy policy;
+    private final Map<String, Line> lines = new ConcurrentHashMap<>();
+
+    public TicketScheduler(TicketPersistence persistence, NextTicketPolicy policy) {
+        this.persistence = persistence;
+        this.policy = policy;
+    }
+
+    public Ticket callNext(String queue, String counter) throws TicketNotFoundException {
+        if (policy.followsIdOrder()) return persistence.CallNextTicket(queue, counter);
+        Line line = lines.computeIfAbsent(queue, q -> new Line());
+        while (true) {
+            long id;
+            long rank;
+            line.lock.lock();
+            try {
+                if (!line.loaded || line.heap.isEmpty()) load(queue, line);
+                if (line.heap.isEmpty()) throw new TicketNotFoundException(
+                        "Ticket not found: %s in queue %s".formatted(CREATED, queue));
+                rank = line.heap.peekRank();
+                id = line.heap.poll();
+            } finally {
+                line.lock.unlock();
+            }
+            try {
+                return persistence.callTicket(queue, id, counter);
+            } catch (TicketNotFoundException e) {
+                // Called elsewhere or archived since it was ranked; try the next one.
+            } catch (RuntimeException e) {
+                offer(line, id, rank);
+                throw e;
+            }
+        }
+    }
+
+    @EventListener
+    public void onTicketEvent(TicketEvent event) {
+        Line line = lines.get(event.queue());
+        if (line == null) return;
+        line.lock.lock();
+        try {
+            if (event.type() == TicketEvent.Type.TICKET_CREATED && event.state() == CREATED) {
+                line.heap.add(event.ticketId(), policy.rank(event.ticketId(), event.priority(), event.timestamp()));
+            } else {
+                line.heap.remove(event.ticketId());
+            }
+        } finally {
+            line.lock.unlock();
+        }
+    }
+
+    // Forgets every heap; they are reloaded from the persistence on the next call.
+    public void reset() {
+        lines.clear();
+    }
+
+    private void load(String queue, Line line) {
+        persistence.forEachTicket(queue, CREATED, 0, ticket -> line.heap.add(ticket.getId(), policy.rank(ticket)));
+        line.loaded = true;
+    }
+
+    private static void offer(Line line, long id, long rank) {
+        line.lock.lock();
+        try {
+            line.heap.add(id, rank);
+        } finally {
+            line.lock.unlock();
+        }
+    }
+
+    private static final class Line {
+        final ReentrantLock lock = new ReentrantLock();
+        final TicketHeap heap = new TicketHeap();
+        boolean loaded;
+    }
+}
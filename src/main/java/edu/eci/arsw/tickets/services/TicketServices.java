@@ -1,39 +1,171 @@
 package edu.eci.arsw.tickets.services;
 
+import edu.eci.arsw.tickets.events.TicketEvent;
 import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
 import edu.eci.arsw.tickets.persistence.TicketNotFoundException;
 import edu.eci.arsw.tickets.persistence.TicketPersistence;
 import edu.eci.arsw.tickets.persistence.TicketPersistenceException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class TicketServices {
 
     private final TicketPersistence persistence;
+    private final ApplicationEventPublisher events;
+    private final TicketCache cache;
+    private final TicketScheduler scheduler;
+    private final QueuePositions positions;
+    private final Timer addTimer;
+    private final Timer addBulkTimer;
+    private final Timer pageTimer;
+    private final Timer streamTimer;
+    private final Timer historyTimer;
+    private final Timer positionTimer;
+    private final Timer byIdTimer;
+    private final Timer calledTimer;
+    private final Timer callNextTimer;
 
-    public TicketServices(TicketPersistence persistence) {
+    public TicketServices(TicketPersistence persistence, ApplicationEventPublisher events, TicketCache cache,
+                          TicketScheduler scheduler, QueuePositions positions, MeterRegistry registry) {
         this.persistence = persistence;
+        this.events = events;
+        this.cache = cache;
+        this.scheduler = scheduler;
+        this.positions = positions;
+        this.addTimer = timer(registry, "addNewTicket");
+        this.addBulkTimer = timer(registry, "addNewTickets");
+        this.pageTimer = timer(registry, "getTickets");
+        this.streamTimer = timer(registry, "forEachTicket");
+        this.historyTimer = timer(registry, "getHistory");
+        this.positionTimer = timer(registry, "getPosition");
+        this.byIdTimer = timer(registry, "getTicketById");
+        this.calledTimer = timer(registry, "getCalledTicket");
+        this.callNextTimer = timer(registry, "callNextTicket");
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("tickets.service")
+                .description("Latency of TicketServices operations")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
     }
 
     public void addNewTicket(Ticket ticket) throws TicketPersistenceException {
-        persistence.saveTicket(ticket);
+        long start = System.nanoTime();
+        try {
+            persistence.saveTicket(ticket);
+            events.publishEvent(TicketEvent.created(ticket));
+            if (ticket.getState() == TicketState.CALLED) events.publishEvent(TicketEvent.called(ticket));
+        } finally {
+            addTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public List<Ticket> addNewTickets(List<Ticket> tickets) throws TicketPersistenceException {
+        long start = System.nanoTime();
+        try {
+            persistence.saveTickets(tickets);
+            for (Ticket ticket : tickets) {
+                events.publishEvent(TicketEvent.created(ticket));
+                if (ticket.getState() == TicketState.CALLED) events.publishEvent(TicketEvent.called(ticket));
+            }
+            return tickets;
+        } finally {
+            addBulkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public List<Ticket> getTickets(String queue, TicketState state, long afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return persistence.getTickets(queue, state, afterId, limit);
+        } finally {
+            pageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
-    public Set<Ticket> getAllTickets() {
-        return persistence.getAllTickets();
+    public void forEachTicket(String queue, TicketState state, long afterId, Consumer<Ticket> action) {
+        long start = System.nanoTime();
+        try {
+            persistence.forEachTicket(queue, state, afterId, action);
+        } finally {
+            streamTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public List<Ticket> getHistory(String queue, TicketState reached, Instant from, Instant to, long afterId,
+                                   int limit) {
+        long start = System.nanoTime();
+        try {
+            return persistence.getHistory(queue, reached, from, to, afterId, limit);
+        } finally {
+            historyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ahead is null once the ticket is no longer waiting, including a call that the cached state missed.
+    public TicketPosition getPosition(long id) throws TicketNotFoundException {
+        long start = System.nanoTime();
+        try {
+            Ticket ticket = getTicketById(id);
+            int ahead = ticket.getState() == TicketState.CREATED ? positions.ahead(ticket.getQueue(), id) : -1;
+            return new TicketPosition(id, ticket.getQueue(), ticket.getState(), ticket.getNumber(),
+                    ahead >= 0 ? ahead : null, positions.waiting(ticket.getQueue()));
+        } finally {
+            positionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public Ticket getTicketById(long id) throws TicketNotFoundException {
-        return persistence.getTicketById(id);
+        long start = System.nanoTime();
+        try {
+            Ticket ticket = cache.getTicket(id);
+            if (ticket != null) return ticket;
+            long generation = cache.generation();
+            ticket = persistence.getTicketById(id);
+            cache.putTicket(ticket, generation);
+            return ticket;
+        } finally {
+            byIdTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public Ticket getCalledTicket(String queue) throws TicketNotFoundException {
+        long start = System.nanoTime();
+        try {
+            Ticket ticket = cache.getCalled(queue);
+            if (ticket != null) return ticket;
+            long generation = cache.generation();
+            ticket = persistence.getCalledTicket(queue);
+            cache.putCalled(ticket, generation);
+            return ticket;
+        } finally {
+            calledTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
-    public Ticket getCalledTicket() throws TicketNotFoundException {
-        return persistence.getCalledTicket();
+    public Ticket callNextTicket(String queue, String counter) throws TicketNotFoundException {
+        long start = System.nanoTime();
+        try {
+            Ticket ticket = scheduler.callNext(queue, counter);
+            events.publishEvent(TicketEvent.called(ticket));
+            return ticket;
+        } finally {
+            callNextTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
-    public void callNextTicket() throws TicketNotFoundException {
-        persistence.CallNextTicket();
+    public record TicketPosition(long id, String queue, TicketState state, Integer number, Integer ahead,
+                                 int waiting) {
     }
 }
@@ -1,50 +1,134 @@
 package edu.eci.arsw.tickets.socket;
 
-import edu.eci.arsw.tickets.model.NOTUSING.Point;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.eci.arsw.tickets.events.TicketDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.socket.client.IO;
 import io.socket.client.Socket;
-import io.socket.emitter.Emitter;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+
 import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Bridge to the Node Socket.IO server. Ticket deltas are buffered per room,
+ * keeping only the latest delta of each ticket, and sent as one
+ * "ticket-deltas" message per flush that Node fans out to each room. While
+ * the socket is down the buffer keeps growing up to {@code buffer-capacity}
+ * deltas and is replayed as soon as the client reconnects, with exponential
+ * backoff between attempts. A room whose deltas had to be dropped is sent a
+ * single resync marker instead, so its boards refetch once.
+ */
 @Service
 public class SocketIOClientService {
 
+    static final String EVENT = "ticket-deltas";
+
+    private static final Logger log = LoggerFactory.getLogger(SocketIOClientService.class);
+
     @Value("${socketio.url:http://localhost:3001}")
     private String socketIoUrl;
 
-    private Socket socket;
+    @Value("${socketio.reconnect.initial-delay-ms:500}")
+    private long initialDelayMs;
+
+    @Value("${socketio.reconnect.max-delay-ms:30000}")
+    private long maxDelayMs;
+
+    @Value("${socketio.connect-on-startup:true}")
+    private boolean connectOnStartup;
+
+    private volatile Socket socket;
+    private final ObjectMapper mapper;
+    private final int capacity;
+    // Outbound buffer, only touched by the publisher worker and the socket's event thread.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Room> rooms = new LinkedHashMap<>();
+    private final AtomicBoolean connectedOnce = new AtomicBoolean();
+    private volatile int buffered;
+    private final Timer emitTimer;
+    private final Counter emitFailures;
+    private final Counter overflow;
+    private final Counter replayed;
+    private final Counter reconnects;
+
+    public SocketIOClientService(ObjectMapper mapper, MeterRegistry registry,
+                                 @Value("${socketio.buffer-capacity:10000}") int capacity) {
+        this.mapper = mapper;
+        this.capacity = capacity;
+        this.emitTimer = Timer.builder("tickets.socketio.emit")
+                .description("Time spent emitting events to the Socket.IO server")
+                .register(registry);
+        this.emitFailures = Counter.builder("tickets.socketio.emit.failures")
+                .description("Flushes whose payload could not be serialized")
+                .register(registry);
+        this.overflow = Counter.builder("tickets.socketio.overflow")
+                .description("Buffered deltas dropped for a resync marker because the buffer was full")
+                .register(registry);
+        this.replayed = Counter.builder("tickets.socketio.replayed")
+                .description("Deltas buffered while disconnected and sent after reconnecting")
+                .register(registry);
+        this.reconnects = Counter.builder("tickets.socketio.reconnects").register(registry);
+        Gauge.builder("tickets.socketio.buffered", this, s -> s.buffered)
+                .description("Deltas waiting to be sent to the Socket.IO server").register(registry);
+        Gauge.builder("tickets.socketio.connected", this, s -> s.isConnected() ? 1 : 0).register(registry);
+    }
 
     @PostConstruct
     public void init() {
-        try {
-            socket = IO.socket(socketIoUrl);
-            socket.on(Socket.EVENT_CONNECT, new Emitter.Listener() {
-                @Override
-                public void call(Object... args) {
-                    System.out.println("Connected to Socket.IO server");
-                }
-            });
-
-            socket.on("ticket-update", new Emitter.Listener() {
-                @Override
-                public void call(Object... args) {
-                    System.out.println("Received blueprint update: " + args[0]);
-                }
-            });
-
-            socket.connect();
+        if (connectOnStartup) connect();
+    }
 
-        }
-        catch (URISyntaxException e) {
-            e.printStackTrace();
-        }
+    // Deltas are buffered until then, so connecting after startup loses nothing.
+    @EventListener(ApplicationReadyEvent.class)
+    public void connectWhenReady() {
+        if (!connectOnStartup) connect();
+    }
 
+    private synchronized void connect() {
+        if (socket != null) return;
+        IO.Options options = new IO.Options();
+        options.reconnection = true;
+        options.reconnectionDelay = initialDelayMs;
+        options.reconnectionDelayMax = maxDelayMs;
+        options.randomizationFactor = 0.5;
+        Socket socket;
+        try {
+            socket = IO.socket(socketIoUrl, options);
+        } catch (URISyntaxException e) {
+            log.error("Invalid Socket.IO url {}, queue updates will only be buffered", socketIoUrl, e);
+            return;
+        }
+        socket.on(Socket.EVENT_CONNECT, args -> {
+            if (connectedOnce.getAndSet(true)) reconnects.increment();
+            int pending = buffered;
+            log.info("Connected to Socket.IO server {}, replaying {} buffered deltas", socketIoUrl, pending);
+            replayed.increment(pending);
+            flush();
+        });
+        socket.on(Socket.EVENT_DISCONNECT, args ->
+                log.warn("Disconnected from Socket.IO server {}: {}", socketIoUrl, args.length > 0 ? args[0] : ""));
+        socket.on(Socket.EVENT_CONNECT_ERROR, args ->
+                log.debug("Socket.IO connection to {} failed: {}", socketIoUrl, args.length > 0 ? args[0] : ""));
+        this.socket = socket;
+        socket.connect();
     }
 
     @PreDestroy
@@ -54,19 +138,79 @@ public class SocketIOClientService {
         }
     }
 
+    public boolean isConnected() {
+        return socket != null && socket.connected();
+    }
 
-    public void sendDrawEvent() {
-        if (socket != null && socket.connected()) {
-            String room = "HOSPITAL";
-            try {
-                JSONObject eventData = new JSONObject();
-                eventData.put("room", room);
-                eventData.put("fromSpring", true);
+    /**
+     * Buffers the deltas under their queue's room, plus a resync marker for
+     * the rooms in {@code resync}, and sends them right away if the socket is
+     * connected. Returns how many deltas replaced an older one of the same
+     * ticket. Called from the publisher's worker, never from request threads.
+     */
+    public int send(List<TicketDelta> deltas, Set<String> resync) {
+        lock.lock();
+        try {
+            int coalesced = 0;
+            resync.forEach(room -> markResync(room(room)));
+            for (TicketDelta delta : deltas) {
+                Room room = room(delta.queue());
+                if (room.deltas.remove(delta.id()) == null) buffered++;
+                else coalesced++;
+                room.deltas.put(delta.id(), delta);
+                if (buffered > capacity) markResync(room);
+            }
+            flush();
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Room room(String name) {
+        return rooms.computeIfAbsent(name, n -> new Room());
+    }
 
-                socket.emit("draw-event", eventData);
-            } catch (JSONException e) {
-                System.err.println("Error creating JSON for Socket.IO event: " + e.getMessage());
+    private void markResync(Room room) {
+        overflow.increment(room.deltas.size());
+        buffered -= room.deltas.size();
+        room.deltas.clear();
+        room.resync = true;
+    }
+
+    private void flush() {
+        lock.lock();
+        try {
+            if (rooms.isEmpty() || !isConnected()) return;
+            long start = System.nanoTime();
+            Map<String, Batch> payload = new LinkedHashMap<>();
+            rooms.forEach((name, room) -> payload.put(name, new Batch(room.resync, List.copyOf(room.deltas.values()))));
+            String json;
+            try {
+                json = mapper.writeValueAsString(payload);
+            } catch (JsonProcessingException e) {
+                emitFailures.increment();
+                log.error("Dropping {} deltas that could not be serialized", buffered, e);
+                rooms.clear();
+                buffered = 0;
+                return;
             }
+            socket.emit(EVENT, json);
+            rooms.clear();
+            buffered = 0;
+            emitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
         }
     }
+
+    // resync: the room missed deltas and should be refetched before applying these.
+    record Batch(boolean resync, List<TicketDelta> deltas) {
+    }
+
+    private static final class Room {
+        // Latest delta per ticket id, in the order of their last change.
+        final LinkedHashMap<Long, TicketDelta> deltas = new LinkedHashMap<>();
+        boolean resync;
+    }
 }
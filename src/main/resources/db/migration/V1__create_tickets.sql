@@ -0,0 +1,25 @@
+-- Schema as previously created by ddl-auto: update. IF NOT EXISTS keeps it safe
+-- on databases that already have it (flyway baselines them at version 0).
+CREATE SEQUENCE IF NOT EXISTS tickets_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS tickets (
+    id      bigint      NOT NULL PRIMARY KEY,
+    state   smallint    CHECK (state BETWEEN 0 AND 2),
+    queue   varchar(64) NOT NULL DEFAULT 'HOSPITAL',
+    counter varchar(255)
+);
+
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS queue varchar(64) NOT NULL DEFAULT 'HOSPITAL';
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS counter varchar(255);
+
+CREATE TABLE IF NOT EXISTS blueprints (
+    id     bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    author varchar(255),
+    name   varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS blueprint_points (
+    blueprint_id bigint  NOT NULL REFERENCES blueprints (id),
+    x            integer NOT NULL,
+    y            integer NOT NULL
+);
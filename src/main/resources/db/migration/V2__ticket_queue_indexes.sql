@@ -0,0 +1,22 @@
+-- Older data may hold several CALLED tickets per queue; keep only the newest one.
+UPDATE tickets t SET state = 2
+WHERE state = 1
+  AND id < (SELECT max(id) FROM tickets c WHERE c.queue = t.queue AND c.state = 1);
+
+-- At most one CALLED ticket per queue. An exclusion constraint over a partial btree
+-- index instead of a plain partial unique index so the check can be deferred to
+-- commit: the call-next statement completes and promotes in the same UPDATE and
+-- rows are not updated in a guaranteed order.
+ALTER TABLE tickets
+    ADD CONSTRAINT tickets_one_called_per_queue
+    EXCLUDE USING btree (queue WITH =) WHERE (state = 1)
+    DEFERRABLE INITIALLY DEFERRED;
+
+-- Waiting line of each queue in call order (call-next, promote-if-idle, CREATED pages).
+CREATE INDEX tickets_waiting_idx ON tickets (queue, id) WHERE state = 0;
+
+-- Keyset pages and streaming per queue.
+CREATE INDEX tickets_queue_id_idx ON tickets (queue, id);
+
+-- Queue depth gauges.
+CREATE INDEX tickets_state_idx ON tickets (state);
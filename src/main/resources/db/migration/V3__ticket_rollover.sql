@@ -0,0 +1,24 @@
+-- Visible per-queue number, restarted every service day.
+ALTER TABLE tickets ADD COLUMN number integer;
+ALTER TABLE tickets ADD COLUMN service_day date NOT NULL DEFAULT current_date;
+
+CREATE TABLE queue_counters (
+    queue       varchar(64) NOT NULL PRIMARY KEY,
+    service_day date        NOT NULL,
+    last_number integer     NOT NULL
+);
+
+-- COMPLETED tickets moved out of the live table by the rollover job.
+CREATE TABLE tickets_archive (
+    id          bigint       NOT NULL PRIMARY KEY,
+    state       smallint,
+    queue       varchar(64)  NOT NULL,
+    counter     varchar(255),
+    number      integer,
+    service_day date         NOT NULL,
+    archived_at timestamptz  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX tickets_archive_day_queue_idx ON tickets_archive (service_day, queue);
+
+CREATE INDEX tickets_completed_day_idx ON tickets (service_day, id) WHERE state = 2;
@@ -0,0 +1,5 @@
+ALTER TABLE tickets ADD COLUMN priority smallint NOT NULL DEFAULT 0;
+ALTER TABLE tickets ADD COLUMN created_at timestamptz NOT NULL DEFAULT now();
+
+ALTER TABLE tickets_archive ADD COLUMN priority smallint NOT NULL DEFAULT 0;
+ALTER TABLE tickets_archive ADD COLUMN created_at timestamptz;
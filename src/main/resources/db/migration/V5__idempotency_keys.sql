@@ -0,0 +1,13 @@
+-- Results of create/call requests sent with an Idempotency-Key, shared by every node.
+-- status is NULL while the first request is still running.
+CREATE TABLE idempotency_keys (
+    operation       varchar(16)  NOT NULL,
+    idempotency_key varchar(128) NOT NULL,
+    status          integer,
+    message         text,
+    ticket_id       bigint,
+    expires_at      timestamptz  NOT NULL,
+    PRIMARY KEY (operation, idempotency_key)
+);
+
+CREATE INDEX idempotency_keys_expires_idx ON idempotency_keys (expires_at);
@@ -0,0 +1,22 @@
+-- Append-only log of ticket transitions written by the eventlog profile.
+-- seq is assigned by the node in transition order; rows may arrive out of order.
+CREATE TABLE ticket_events (
+    seq        bigint      NOT NULL PRIMARY KEY,
+    ticket_id  bigint      NOT NULL,
+    queue      varchar(64) NOT NULL,
+    state      smallint    NOT NULL,
+    counter    varchar(255),
+    priority   smallint    NOT NULL,
+    number     integer,
+    created_at timestamptz NOT NULL,
+    at         timestamptz NOT NULL
+);
+
+-- Live queue (CREATED and CALLED tickets) as of last_seq, binary encoded.
+CREATE TABLE queue_snapshots (
+    id            bigserial   PRIMARY KEY,
+    last_seq      bigint      NOT NULL,
+    max_ticket_id bigint      NOT NULL,
+    taken_at      timestamptz NOT NULL DEFAULT now(),
+    tickets       bytea       NOT NULL
+);
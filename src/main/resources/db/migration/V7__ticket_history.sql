@@ -0,0 +1,16 @@
+-- Transition times for the history queries; NULL until the ticket gets there.
+ALTER TABLE tickets ADD COLUMN called_at timestamptz;
+ALTER TABLE tickets ADD COLUMN completed_at timestamptz;
+
+ALTER TABLE tickets_archive ADD COLUMN called_at timestamptz;
+ALTER TABLE tickets_archive ADD COLUMN completed_at timestamptz;
+
+-- Time range pages per queue, keyset on (time, id). Partial where the column starts NULL,
+-- so waiting tickets stay out of the called/completed indexes.
+CREATE INDEX tickets_queue_created_idx ON tickets (queue, created_at, id);
+CREATE INDEX tickets_queue_called_idx ON tickets (queue, called_at, id) WHERE called_at IS NOT NULL;
+CREATE INDEX tickets_queue_completed_idx ON tickets (queue, completed_at, id) WHERE completed_at IS NOT NULL;
+
+CREATE INDEX tickets_archive_queue_created_idx ON tickets_archive (queue, created_at, id);
+CREATE INDEX tickets_archive_queue_called_idx ON tickets_archive (queue, called_at, id) WHERE called_at IS NOT NULL;
+CREATE INDEX tickets_archive_queue_completed_idx ON tickets_archive (queue, completed_at, id) WHERE completed_at IS NOT NULL;
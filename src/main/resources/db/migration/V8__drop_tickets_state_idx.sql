@@ -0,0 +1,4 @@
+-- Every state already has a partial index that the depth gauges can count from:
+-- tickets_waiting_idx (0), tickets_one_called_per_queue (1), tickets_completed_day_idx (2).
+-- The plain state index only competed with the queue-scoped ones for the CALLED lookup.
+DROP INDEX IF EXISTS tickets_state_idx;
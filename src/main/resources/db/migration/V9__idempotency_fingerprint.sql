@@ -0,0 +1,3 @@
+-- Endpoint parameters the key was first used with; a retry with other parameters is rejected.
+-- NULL for keys stored before this column, which match any parameters until they expire.
+ALTER TABLE idempotency_keys ADD COLUMN fingerprint text;
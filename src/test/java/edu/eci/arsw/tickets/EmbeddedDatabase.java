@@ -0,0 +1,77 @@
+package edu.eci.arsw.tickets;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Local Postgres stand-in for the tests and the benchmarks: an embedded
+ * Postgres process plus helpers to boot the application against it with a
+ * given profile. Tests that use it are tagged {@code postgres}.
+ */
+public final class EmbeddedDatabase {
+
+    public static final String QUEUE = "BENCH";
+
+    private static EmbeddedPostgres postgres;
+
+    private EmbeddedDatabase() {
+    }
+
+    public static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+
+    // Command-line arguments rather than builder properties: those are defaults and application.yml would win.
+    public static ConfigurableApplicationContext boot(String... profiles) {
+        return new SpringApplicationBuilder(HospitalApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profiles)
+                .run("--spring.datasource.url=" + postgres().getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres",
+                        "--spring.jpa.show-sql=false",
+                        "--socketio.url=http://127.0.0.1:9",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * Boots once to create the schema, resets the bench queue to {@code size}
+     * tickets (90% COMPLETED, one CALLED, the rest CREATED) and boots again
+     * with the requested profiles so in-memory modes rebuild from that data.
+     */
+    public static ConfigurableApplicationContext bootWithTickets(int size, String... profiles) {
+        try (ConfigurableApplicationContext schema = boot()) {
+            JdbcTemplate jdbc = schema.getBean(JdbcTemplate.class);
+            jdbc.update("DELETE FROM tickets WHERE queue = ?", QUEUE);
+            // The eventlog profile would otherwise recover tickets that were just deleted.
+            jdbc.update("TRUNCATE ticket_events, queue_snapshots");
+            int completed = size * 9 / 10;
+            // One ticket per second up to now; each is called 5 minutes after creation and completed a minute later.
+            jdbc.update("""
+                    INSERT INTO tickets (id, state, queue, created_at, called_at, completed_at)
+                    SELECT nextval('tickets_seq'), state, ?, at,
+                           CASE WHEN state > 0 THEN at + interval '5 minutes' END,
+                           CASE WHEN state = 2 THEN at + interval '6 minutes' END
+                    FROM (SELECT g,
+                                 CASE WHEN g <= ? THEN 2 WHEN g = ? + 1 THEN 1 ELSE 0 END AS state,
+                                 now() - (? - g) * interval '1 second' AS at
+                          FROM generate_series(1, ?) g) seeded
+                    ORDER BY g
+                    """, QUEUE, completed, completed, size, size);
+        }
+        return boot(profiles);
+    }
+}
@@ -0,0 +1,112 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.EmbeddedDatabase;
+import edu.eci.arsw.tickets.model.Ticket;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.eci.arsw.tickets.EmbeddedDatabase.QUEUE;
+import static edu.eci.arsw.tickets.model.TicketState.CALLED;
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many virtual threads calling the same queue at once: every waiting ticket is
+ * called exactly once and the queue is left with a single CALLED ticket, for
+ * each persistence profile. Prints the call throughput.
+ */
+@Tag("postgres")
+class CallNextConcurrencyTest {
+
+    // bootWithTickets leaves a tenth of them in the line: one CALLED, the rest waiting.
+    private static final int TICKETS = 20_000;
+    private static final int WAITING = TICKETS / 10 - 1;
+    private static final int CALLERS = 64;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "hotqueue", "eventlog"})
+    void callNextCallsEveryWaitingTicketOnce(String profile) throws Exception {
+        try (ConfigurableApplicationContext context = EmbeddedDatabase.bootWithTickets(TICKETS, profiles(profile))) {
+            TicketPersistence persistence = context.getBean(TicketPersistence.class);
+            Map<Long, String> calledBy = new ConcurrentHashMap<>();
+            List<Long> duplicates = Collections.synchronizedList(new ArrayList<>());
+
+            long start = System.nanoTime();
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> callers = new ArrayList<>();
+                for (int i = 0; i < CALLERS; i++) {
+                    String counter = "desk-" + i;
+                    callers.add(pool.submit(() -> {
+                        while (true) {
+                            Ticket ticket;
+                            try {
+                                ticket = persistence.CallNextTicket(QUEUE, counter);
+                            } catch (TicketNotFoundException e) {
+                                return null;
+                            }
+                            if (calledBy.putIfAbsent(ticket.getId(), counter) != null) duplicates.add(ticket.getId());
+                        }
+                    }));
+                }
+                for (Future<?> caller : callers) caller.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("profile=%s callers=%d called=%d throughput=%.0f calls/s%n",
+                    profile, CALLERS, calledBy.size(), calledBy.size() / seconds);
+
+            assertThat(duplicates).isEmpty();
+            assertThat(calledBy).hasSize(WAITING);
+            assertThat(persistence.getTickets(QUEUE, CREATED, 0, 1)).isEmpty();
+            assertThat(persistence.getTickets(QUEUE, CALLED, 0, 10)).hasSize(1);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "hotqueue", "eventlog"})
+    void callTicketCallsEachTicketOnceWhenCountersRaceForIt(String profile) throws Exception {
+        try (ConfigurableApplicationContext context = EmbeddedDatabase.bootWithTickets(TICKETS, profiles(profile))) {
+            TicketPersistence persistence = context.getBean(TicketPersistence.class);
+            List<Long> ids = persistence.getTickets(QUEUE, CREATED, 0, 200).stream().map(Ticket::getId).toList();
+            Map<Long, AtomicInteger> wins = new ConcurrentHashMap<>();
+
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> callers = new ArrayList<>();
+                for (int i = 0; i < CALLERS; i++) {
+                    String counter = "desk-" + i;
+                    callers.add(pool.submit(() -> {
+                        for (long id : ids) {
+                            try {
+                                persistence.callTicket(QUEUE, id, counter);
+                                wins.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+                            } catch (TicketNotFoundException e) {
+                                // another counter got it first
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> caller : callers) caller.get();
+            }
+
+            assertThat(wins).hasSize(ids.size());
+            assertThat(wins.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+            assertThat(persistence.getTickets(QUEUE, CALLED, 0, 10)).hasSize(1);
+        }
+    }
+
+    private static String[] profiles(String profile) {
+        return "default".equals(profile) ? new String[0] : new String[]{profile};
+    }
+}
@@ -0,0 +1,89 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.EmbeddedDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seeds the Flyway schema with several queues of skewed sizes, as in a real
+ * service day, and checks with EXPLAIN that the hot ticket queries, the depth
+ * gauges and the history pages are served by the queue-scoped indexes of
+ * V2, V7 and V8 instead of the primary key or a sequential scan. Queries run
+ * against a mid-sized queue.
+ */
+@Tag("postgres")
+class QueryPlanTest {
+
+    private static final int TICKETS = 200_000;
+    private static final int QUEUES = 8;
+    private static final String QUEUE = "PLAN-2";
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void seed() {
+        context = EmbeddedDatabase.boot();
+        jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("DELETE FROM tickets WHERE queue LIKE 'PLAN-%'");
+        // One ticket per second up to now, spread over the queues with random()^3 (PLAN-0 gets half of them,
+        // PLAN-7 about 4%); 90% COMPLETED and the rest waiting, each called 5 minutes after creation.
+        jdbc.update("""
+                INSERT INTO tickets (id, state, queue, created_at, called_at, completed_at)
+                SELECT nextval('tickets_seq'), state, queue, at,
+                       CASE WHEN state > 0 THEN at + interval '5 minutes' END,
+                       CASE WHEN state = 2 THEN at + interval '6 minutes' END
+                FROM (SELECT g,
+                             'PLAN-' || floor(power(random(), 3) * ?)::int AS queue,
+                             CASE WHEN random() < 0.9 THEN 2 ELSE 0 END AS state,
+                             now() - (? - g) * interval '1 second' AS at
+                      FROM generate_series(1, ?) g) seeded
+                ORDER BY g
+                """, QUEUES, TICKETS, TICKETS);
+        jdbc.update("""
+                UPDATE tickets SET state = 1, called_at = created_at + interval '5 minutes'
+                WHERE id IN (SELECT min(id) FROM tickets WHERE queue LIKE 'PLAN-%' AND state = 0 GROUP BY queue)
+                """);
+        jdbc.execute("VACUUM ANALYZE tickets");
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        jdbc.update("DELETE FROM tickets WHERE queue LIKE 'PLAN-%'");
+        context.close();
+    }
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                Arguments.of("SELECT id FROM tickets WHERE queue = '%s' AND state = 0 ORDER BY id LIMIT 1"
+                        .formatted(QUEUE), "tickets_waiting_idx"),
+                Arguments.of("SELECT * FROM tickets WHERE queue = '%s' AND state = 1"
+                        .formatted(QUEUE), "tickets_one_called_per_queue"),
+                Arguments.of("SELECT * FROM tickets WHERE queue = '%s' AND id > 0 ORDER BY id LIMIT 200"
+                        .formatted(QUEUE), "tickets_queue_id_idx"),
+                Arguments.of("SELECT count(*) FROM tickets WHERE state = 0", "tickets_waiting_idx"),
+                Arguments.of(("SELECT * FROM tickets WHERE queue = '%s' AND called_at IS NOT NULL"
+                        + " AND (called_at, id) > (now() - interval '1 hour', 0) AND called_at < now()"
+                        + " ORDER BY called_at, id LIMIT 200").formatted(QUEUE), "tickets_queue_called_idx"),
+                Arguments.of(("SELECT * FROM tickets WHERE queue = '%s' AND created_at IS NOT NULL"
+                        + " AND (created_at, id) > (now() - interval '1 hour', 0) AND created_at < now()"
+                        + " ORDER BY created_at, id LIMIT 200").formatted(QUEUE), "tickets_queue_created_idx"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queries")
+    void queryUsesItsIndex(String query, String index) {
+        String plan = String.join("\n", jdbc.queryForList("EXPLAIN " + query, String.class));
+        assertThat(plan).as(query).contains(index);
+    }
+}
@@ -0,0 +1,198 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static edu.eci.arsw.tickets.model.TicketState.CALLED;
+import static edu.eci.arsw.tickets.model.TicketState.COMPLETED;
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+
+/**
+ * The simplest TicketPersistence that keeps the queue contract: every
+ * operation runs under one lock over an in-memory map. It is the stand-in the
+ * conformance test runs without any database, so a failure there points at
+ * the check itself rather than at an implementation. Lookups scan every
+ * ticket: it favours being obviously right over being fast.
+ */
+class ReferenceTicketPersistence implements TicketPersistence {
+
+    // JPA assigns ids through the field; the stand-in does the same.
+    private static final Field ID;
+
+    static {
+        try {
+            ID = Ticket.class.getDeclaredField("id");
+            ID.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<Long, Ticket> tickets = new TreeMap<>();
+    private final Map<String, Integer> numbers = new HashMap<>();
+    private long lastId;
+
+    @Override
+    public void saveTicket(Ticket ticket) {
+        saveTickets(List.of(ticket));
+    }
+
+    @Override
+    public void saveTickets(List<Ticket> batch) {
+        lock.lock();
+        try {
+            for (Ticket ticket : batch) {
+                ID.set(ticket, ++lastId);
+                ticket.setNumber(numbers.merge(ticket.getQueue(), 1, Integer::sum));
+                tickets.put(ticket.getId(), ticket);
+            }
+            for (String queue : batch.stream().map(Ticket::getQueue).distinct().toList()) {
+                if (find(queue, CALLED) != null) continue;
+                Ticket next = find(queue, CREATED);
+                if (next != null) {
+                    next.setState(CALLED);
+                    next.setCalledAt(Ticket.now());
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket getCalledTicket(String queue) throws TicketNotFoundException {
+        lock.lock();
+        try {
+            Ticket called = find(queue, CALLED);
+            if (called == null) throw new TicketNotFoundException(
+                    "Ticket not found: %s in queue %s".formatted(CALLED, queue));
+            return called;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket getTicketById(long id) throws TicketNotFoundException {
+        lock.lock();
+        try {
+            Ticket ticket = tickets.get(id);
+            if (ticket == null) throw new TicketNotFoundException("Ticket not found: " + id);
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Ticket> getTickets(String queue, TicketState state, long afterId, int limit) {
+        lock.lock();
+        try {
+            return tickets.tailMap(afterId, false).values().stream()
+                    .filter(ticket -> ticket.getQueue().equals(queue) && (state == null || ticket.getState() == state))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void forEachTicket(String queue, TicketState state, long afterId, Consumer<Ticket> action) {
+        getTickets(queue, state, afterId, Integer.MAX_VALUE).forEach(action);
+    }
+
+    @Override
+    public List<Ticket> getHistory(String queue, TicketState reached, Instant from, Instant to, long afterId,
+                                   int limit) {
+        lock.lock();
+        try {
+            List<Ticket> page = new ArrayList<>();
+            for (Ticket ticket : tickets.values()) {
+                Instant at = ticket.reachedAt(reached);
+                if (at == null || !ticket.getQueue().equals(queue) || !at.isBefore(to)) continue;
+                int cmp = at.compareTo(from);
+                if (cmp > 0 || cmp == 0 && ticket.getId() > afterId) page.add(ticket);
+            }
+            return page.stream()
+                    .sorted(Comparator.comparing((Ticket ticket) -> ticket.reachedAt(reached))
+                            .thenComparingLong(Ticket::getId))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket CallNextTicket(String queue, String counter) throws TicketNotFoundException {
+        lock.lock();
+        try {
+            Ticket next = find(queue, CREATED);
+            if (next == null) throw new TicketNotFoundException(
+                    "Ticket not found: %s in queue %s".formatted(CREATED, queue));
+            return call(next, counter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket callTicket(String queue, long id, String counter) throws TicketNotFoundException {
+        lock.lock();
+        try {
+            Ticket next = tickets.get(id);
+            if (next == null || !next.getQueue().equals(queue) || next.getState() != CREATED) {
+                throw new TicketNotFoundException("Ticket not found: %s %d in queue %s".formatted(CREATED, id, queue));
+            }
+            return call(next, counter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long countTickets(TicketState state) {
+        lock.lock();
+        try {
+            return tickets.values().stream().filter(ticket -> ticket.getState() == state).count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Ticket call(Ticket next, String counter) {
+        Instant now = Ticket.now();
+        Ticket current = find(next.getQueue(), CALLED);
+        if (current != null) {
+            current.setState(COMPLETED);
+            current.setCompletedAt(now);
+        }
+        next.setState(CALLED);
+        next.setCounter(counter);
+        next.setCalledAt(now);
+        return next;
+    }
+
+    // Lowest-id ticket of the queue in that state.
+    private Ticket find(String queue, TicketState state) {
+        for (Ticket ticket : tickets.values()) {
+            if (ticket.getQueue().equals(queue) && ticket.getState() == state) return ticket;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.EmbeddedDatabase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the TicketPersistence contract and the concurrent history check against
+ * ReferenceTicketPersistence, which needs no database, and against each
+ * persistence profile on the embedded Postgres. Profiles that keep the live
+ * queue in memory are restarted between the stress run and the drain, and
+ * must come back with the same CALLED and waiting tickets. Prints throughput
+ * and p50/p99 latencies per operation.
+ */
+class TicketPersistenceConformanceTest {
+
+    private static final int OPERATIONS = 5_000;
+    private static final int WORKERS = 32;
+    private static final int QUEUES = 4;
+
+    @Test
+    void referenceKeepsTheContract() throws Exception {
+        check("reference", new Target(null, null, new ReferenceTicketPersistence()));
+    }
+
+    @Tag("postgres")
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "hotqueue", "eventlog"})
+    void profileKeepsTheContract(String profile) throws Exception {
+        check(profile, Target.open(profile));
+    }
+
+    private static void check(String name, Target target) throws Exception {
+        // Fresh queues per run, so tickets left by earlier runs in the same database do not interfere.
+        String prefix = "CONF-" + Long.toString(System.currentTimeMillis(), 36) + "-" + name;
+        List<String> queues = IntStream.range(0, QUEUES).mapToObj(i -> prefix + "-" + i).toList();
+        List<String> failures = new ArrayList<>();
+        try {
+            failures.addAll(TicketPersistenceContract.check(target.persistence(), prefix + "-contract"));
+
+            TicketPersistenceStress.Run stress = TicketPersistenceStress.run(target.persistence(), queues,
+                    WORKERS, OPERATIONS, prefix.hashCode());
+            failures.addAll(stress.errors());
+            if (target.inMemory()) {
+                Map<String, List<Long>> before = live(target.persistence(), queues);
+                target = target.restart();
+                Map<String, List<Long>> after = live(target.persistence(), queues);
+                if (!before.equals(after)) failures.add("restart changed the live queues: " + before + " -> " + after);
+            }
+            List<TicketPersistenceStress.Op> history = new ArrayList<>(stress.history());
+            history.addAll(TicketPersistenceStress.drain(target.persistence(), queues));
+            failures.addAll(TicketPersistenceStress.verify(target.persistence(), history));
+
+            System.out.printf("target=%s workers=%d queues=%d %s%n",
+                    name, WORKERS, QUEUES, TicketPersistenceStress.report(stress));
+        } finally {
+            target.close();
+        }
+        assertThat(failures).as(name).isEmpty();
+    }
+
+    // CALLED ticket (or -1) followed by the waiting ids of each queue.
+    private static Map<String, List<Long>> live(TicketPersistence persistence, List<String> queues) {
+        Map<String, List<Long>> live = new LinkedHashMap<>();
+        for (String queue : queues) {
+            List<Long> ids = new ArrayList<>();
+            try {
+                ids.add(persistence.getCalledTicket(queue).getId());
+            } catch (TicketNotFoundException e) {
+                ids.add(-1L);
+            }
+            persistence.forEachTicket(queue, CREATED, 0, ticket -> ids.add(ticket.getId()));
+            live.put(queue, ids);
+        }
+        return live;
+    }
+
+    private record Target(String profile, ConfigurableApplicationContext context, TicketPersistence persistence) {
+
+        static Target open(String profile) {
+            ConfigurableApplicationContext context = "default".equals(profile)
+                    ? EmbeddedDatabase.boot()
+                    : EmbeddedDatabase.boot(profile);
+            return new Target(profile, context, context.getBean(TicketPersistence.class));
+        }
+
+        boolean inMemory() {
+            return context != null && context.getEnvironment().matchesProfiles("hotqueue | eventlog");
+        }
+
+        Target restart() {
+            close();
+            return open(profile);
+        }
+
+        void close() {
+            if (context != null) context.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.model.Ticket;
+import edu.eci.arsw.tickets.model.TicketState;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static edu.eci.arsw.tickets.model.TicketState.CALLED;
+import static edu.eci.arsw.tickets.model.TicketState.COMPLETED;
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+
+/**
+ * Sequential contract of a TicketPersistence, walked on one fresh queue: the
+ * first ticket of an idle queue is called on save, calls take the lowest
+ * waiting id and complete the previous CALLED ticket, callTicket only takes
+ * waiting tickets, and the paged reads agree with those transitions.
+ * Returns one message per broken expectation.
+ */
+final class TicketPersistenceContract {
+
+    private final TicketPersistence persistence;
+    private final List<String> failures = new ArrayList<>();
+
+    private TicketPersistenceContract(TicketPersistence persistence) {
+        this.persistence = persistence;
+    }
+
+    static List<String> check(TicketPersistence persistence, String queue) throws Exception {
+        TicketPersistenceContract contract = new TicketPersistenceContract(persistence);
+        contract.run(queue);
+        return contract.failures;
+    }
+
+    private void run(String queue) throws Exception {
+        Instant start = Ticket.now();
+        notFound("getCalledTicket on an empty queue", () -> persistence.getCalledTicket(queue));
+        notFound("CallNextTicket on an empty queue", () -> persistence.CallNextTicket(queue, "desk-1"));
+        notFound("getTicketById of an unknown id", () -> persistence.getTicketById(Long.MAX_VALUE));
+        long waitingBefore = persistence.countTickets(CREATED);
+
+        Ticket first = new Ticket(queue);
+        persistence.saveTicket(first);
+        expect(first.getId() > 0, "saveTicket assigns an id");
+        expect(first.getNumber() != null, "saveTicket assigns a visible number");
+        expect(first.getState() == CALLED && first.getCalledAt() != null,
+                "the first ticket of an idle queue is CALLED on save, was " + first.getState());
+        expect(persistence.getCalledTicket(queue).getId() == first.getId(), "getCalledTicket returns the promoted ticket");
+
+        Ticket second = new Ticket(queue);
+        persistence.saveTicket(second);
+        Ticket third = new Ticket(queue);
+        Ticket fourth = new Ticket(queue);
+        persistence.saveTickets(List.of(third, fourth));
+        expect(second.getState() == CREATED && third.getState() == CREATED && fourth.getState() == CREATED,
+                "tickets saved behind a CALLED one wait");
+        expect(first.getId() < second.getId() && second.getId() < third.getId() && third.getId() < fourth.getId(),
+                "ids grow in save order");
+        expect(second.getNumber() == first.getNumber() + 1 && fourth.getNumber() == first.getNumber() + 3,
+                "visible numbers are consecutive per queue");
+        expect(persistence.countTickets(CREATED) - waitingBefore == 3, "countTickets(CREATED) counts the new tickets");
+        expect(persistence.getTickets(queue, null, 0, 10).size() == 4, "getTickets without state returns every ticket");
+        ids("waiting tickets in id order", persistence.getTickets(queue, CREATED, 0, 10), second, third, fourth);
+        ids("keyset page after an id", persistence.getTickets(queue, CREATED, second.getId(), 1), third);
+        List<Ticket> visited = new ArrayList<>();
+        persistence.forEachTicket(queue, CREATED, 0, visited::add);
+        ids("forEachTicket visits waiting tickets in id order", visited, second, third, fourth);
+        visited.clear();
+        persistence.forEachTicket(queue, null, second.getId(), visited::add);
+        ids("forEachTicket starts after the given id", visited, third, fourth);
+
+        Ticket called = persistence.CallNextTicket(queue, "desk-1");
+        expect(called.getId() == second.getId(), "CallNextTicket takes the lowest waiting id");
+        expect(called.getState() == CALLED && "desk-1".equals(called.getCounter()) && called.getCalledAt() != null,
+                "CallNextTicket marks the ticket CALLED at the counter");
+        expect(persistence.getCalledTicket(queue).getId() == second.getId(), "getCalledTicket follows CallNextTicket");
+        Ticket done = persistence.getTicketById(first.getId());
+        expect(done.getState() == COMPLETED && done.getCompletedAt() != null, "CallNextTicket completes the CALLED ticket");
+
+        Ticket picked = persistence.callTicket(queue, fourth.getId(), "desk-2");
+        expect(picked.getId() == fourth.getId() && picked.getState() == CALLED, "callTicket calls the given ticket");
+        expect(persistence.getTicketById(second.getId()).getState() == COMPLETED, "callTicket completes the CALLED ticket");
+        notFound("callTicket on a ticket that is no longer waiting",
+                () -> persistence.callTicket(queue, fourth.getId(), "desk-2"));
+        notFound("callTicket on a ticket of another queue",
+                () -> persistence.callTicket(queue + "-other", third.getId(), "desk-2"));
+        ids("one CALLED ticket per queue", persistence.getTickets(queue, CALLED, 0, 10), fourth);
+
+        expect(persistence.CallNextTicket(queue, "desk-1").getId() == third.getId(), "CallNextTicket skips called tickets");
+        notFound("CallNextTicket once nobody waits", () -> persistence.CallNextTicket(queue, "desk-1"));
+        expect(persistence.getCalledTicket(queue).getId() == third.getId(), "the last called ticket stays CALLED");
+        expect(persistence.getTickets(queue, CREATED, 0, 10).isEmpty(), "no ticket waits after the calls");
+        expect(persistence.countTickets(CREATED) == waitingBefore, "countTickets(CREATED) drops with the calls");
+
+        Instant end = Ticket.now().plus(Duration.ofSeconds(1));
+        history(queue, CALLED, start, end, first, second, fourth, third);
+        history(queue, COMPLETED, start, end, first, second, fourth);
+    }
+
+    // The history holds exactly the expected tickets, ordered by transition time then id, also when paged by two.
+    private void history(String queue, TicketState reached, Instant from, Instant to, Ticket... expected) {
+        List<Ticket> all = persistence.getHistory(queue, reached, from, to, 0, 100);
+        List<Ticket> sorted = all.stream()
+                .sorted(Comparator.comparing((Ticket ticket) -> ticket.reachedAt(reached)).thenComparingLong(Ticket::getId))
+                .toList();
+        expect(all.stream().map(Ticket::getId).toList().equals(sorted.stream().map(Ticket::getId).toList()),
+                "getHistory(" + reached + ") is ordered by transition time then id");
+        expect(all.stream().map(Ticket::getId).sorted().toList()
+                        .equals(List.of(expected).stream().map(Ticket::getId).sorted().toList()),
+                "getHistory(" + reached + ") returns the tickets that reached it");
+
+        List<Ticket> paged = new ArrayList<>();
+        Instant cursor = from;
+        long afterId = 0;
+        List<Ticket> page;
+        while (!(page = persistence.getHistory(queue, reached, cursor, to, afterId, 2)).isEmpty() && paged.size() <= all.size()) {
+            paged.addAll(page);
+            Ticket last = page.get(page.size() - 1);
+            cursor = last.reachedAt(reached);
+            afterId = last.getId();
+        }
+        expect(paged.stream().map(Ticket::getId).toList().equals(all.stream().map(Ticket::getId).toList()),
+                "getHistory(" + reached + ") pages by (time, id) cursor");
+    }
+
+    private void ids(String what, List<Ticket> actual, Ticket... expected) {
+        List<Long> actualIds = actual.stream().map(Ticket::getId).toList();
+        List<Long> expectedIds = List.of(expected).stream().map(Ticket::getId).toList();
+        expect(actualIds.equals(expectedIds), what + ": expected " + expectedIds + " but got " + actualIds);
+    }
+
+    private void notFound(String what, Call call) {
+        try {
+            call.run();
+            failures.add(what + ": expected TicketNotFoundException");
+        } catch (TicketNotFoundException e) {
+            // expected
+        } catch (Exception e) {
+            failures.add(what + ": expected TicketNotFoundException but got " + e);
+        }
+    }
+
+    private void expect(boolean condition, String what) {
+        if (!condition) failures.add(what);
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+}
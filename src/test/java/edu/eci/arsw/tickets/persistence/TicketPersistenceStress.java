@@ -0,0 +1,249 @@
+package edu.eci.arsw.tickets.persistence;
+
+import edu.eci.arsw.tickets.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static edu.eci.arsw.tickets.model.TicketState.CALLED;
+import static edu.eci.arsw.tickets.model.TicketState.COMPLETED;
+import static edu.eci.arsw.tickets.model.TicketState.CREATED;
+
+/**
+ * Concurrent history check of a TicketPersistence. Virtual threads issue a
+ * random mix of saveTicket, CallNextTicket and getCalledTicket over a few
+ * queues and record every operation with its start and end time; the queues
+ * are then drained and the history is checked against the queue contract.
+ * Operations that overlap may take effect in either order, so every check
+ * only relies on real-time order (one operation ending before another one
+ * starts):
+ * <ul>
+ *   <li>each saved ticket is called exactly once and nothing else is ever
+ *   called. Calls are the tickets CallNextTicket returned; a queue is idle only
+ *   until its first ticket, so at most one ticket per queue may be called by
+ *   its own save instead. The state a save returns is not used for that: the
+ *   in-memory implementations hand out live tickets that a concurrent call may
+ *   already have moved on;</li>
+ *   <li>FIFO: a call never takes a ticket while a lower id saved before the
+ *   call started is still waiting;</li>
+ *   <li>getCalledTicket returns the latest CALLED ticket: never one called
+ *   after the read ended, one replaced before it started, or none once some
+ *   ticket was called;</li>
+ *   <li>at the end the queue holds one CALLED ticket, the last one called,
+ *   and every other saved ticket is COMPLETED.</li>
+ * </ul>
+ */
+final class TicketPersistenceStress {
+
+    enum Kind { SAVE, CALL, READ }
+
+    // id is -1 when the operation found no ticket.
+    record Op(Kind kind, String queue, long start, long end, long id, Integer number) {
+    }
+
+    record Run(List<Op> history, List<String> errors, long nanos) {
+    }
+
+    private static final int MAX_REPORTED = 20;
+
+    private TicketPersistenceStress() {
+    }
+
+    static Run run(TicketPersistence persistence, List<String> queues, int workers, int operations, long seed)
+            throws Exception {
+        List<Op> history = new ArrayList<>(operations);
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Op>>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                int count = operations / workers + (w < operations % workers ? 1 : 0);
+                SplittableRandom random = new SplittableRandom(seed + w);
+                String counter = "desk-" + w;
+                futures.add(pool.submit(() -> work(persistence, queues, counter, count, random, errors)));
+            }
+            for (Future<List<Op>> future : futures) history.addAll(future.get());
+        }
+        return new Run(history, errors, System.nanoTime() - start);
+    }
+
+    private static List<Op> work(TicketPersistence persistence, List<String> queues, String counter, int count,
+                                 SplittableRandom random, List<String> errors) {
+        List<Op> ops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String queue = queues.get(random.nextInt(queues.size()));
+            int dice = random.nextInt(100);
+            Kind kind = dice < 40 ? Kind.SAVE : dice < 80 ? Kind.CALL : Kind.READ;
+            try {
+                ops.add(invoke(persistence, kind, queue, counter));
+            } catch (Exception e) {
+                errors.add(kind + " on " + queue + " failed: " + e);
+            }
+        }
+        return ops;
+    }
+
+    private static Op invoke(TicketPersistence persistence, Kind kind, String queue, String counter) throws Exception {
+        long start = System.nanoTime();
+        long id;
+        Integer number = null;
+        try {
+            switch (kind) {
+                case SAVE -> {
+                    Ticket ticket = new Ticket(queue);
+                    persistence.saveTicket(ticket);
+                    id = ticket.getId();
+                    number = ticket.getNumber();
+                }
+                case CALL -> id = persistence.CallNextTicket(queue, counter).getId();
+                default -> id = persistence.getCalledTicket(queue).getId();
+            }
+        } catch (TicketNotFoundException e) {
+            id = -1;
+        }
+        return new Op(kind, queue, start, System.nanoTime(), id, number);
+    }
+
+    // Calls every queue until nobody waits, recording the calls like the rest of the history.
+    static List<Op> drain(TicketPersistence persistence, List<String> queues) throws Exception {
+        List<Op> ops = new ArrayList<>();
+        for (String queue : queues) {
+            Op op;
+            do {
+                op = invoke(persistence, Kind.CALL, queue, "drain");
+                ops.add(op);
+            } while (op.id() >= 0);
+        }
+        return ops;
+    }
+
+    static List<String> verify(TicketPersistence persistence, List<Op> history) {
+        List<String> failures = new ArrayList<>();
+        Map<String, List<Op>> byQueue = history.stream().collect(Collectors.groupingBy(Op::queue));
+        byQueue.forEach((queue, ops) -> verify(persistence, queue, ops, failures));
+        return failures.size() > MAX_REPORTED ? failures.subList(0, MAX_REPORTED) : failures;
+    }
+
+    private static void verify(TicketPersistence persistence, String queue, List<Op> ops, List<String> failures) {
+        Map<Long, Op> saves = new HashMap<>();
+        Map<Long, Op> makers = new HashMap<>();
+        Set<Integer> numbers = new HashSet<>();
+        for (Op op : ops) {
+            if (op.kind() == Kind.SAVE) {
+                if (saves.put(op.id(), op) != null) failures.add(queue + ": id " + op.id() + " assigned twice");
+                if (!numbers.add(op.number())) failures.add(queue + ": number " + op.number() + " assigned twice");
+            }
+            if (op.kind() == Kind.CALL && op.id() >= 0 && makers.put(op.id(), op) != null) {
+                failures.add(queue + ": ticket " + op.id() + " called twice");
+            }
+        }
+        for (Long id : makers.keySet()) {
+            if (!saves.containsKey(id)) failures.add(queue + ": called ticket " + id + " was never saved there");
+        }
+        List<Long> uncalled = saves.keySet().stream().filter(id -> !makers.containsKey(id)).sorted().toList();
+        if (uncalled.size() > 1) failures.add(queue + ": tickets saved but never called: " + uncalled.subList(1, uncalled.size()));
+        if (!uncalled.isEmpty()) makers.put(uncalled.get(0), saves.get(uncalled.get(0)));
+
+        // FIFO in real time: t was waiting for the whole call m and has a lower id than the ticket m took.
+        for (Map.Entry<Long, Op> made : makers.entrySet()) {
+            Op m = made.getValue();
+            for (Op t : saves.values()) {
+                Op tMaker = makers.get(t.id());
+                if (t.id() < made.getKey() && t.end() < m.start() && tMaker != null && tMaker.start() > m.end()) {
+                    failures.add(queue + ": ticket " + made.getKey() + " was called while " + t.id() + " waited");
+                }
+            }
+        }
+
+        // Makers by start with the earliest end among those starting later, to find a replacement before a read.
+        // Each maker's ticket id is the id of the op itself.
+        Op[] byStart = makers.values().stream().sorted(Comparator.comparingLong(Op::start)).toArray(Op[]::new);
+        long[] starts = Arrays.stream(byStart).mapToLong(Op::start).toArray();
+        long[] minEndFrom = new long[byStart.length + 1];
+        minEndFrom[byStart.length] = Long.MAX_VALUE;
+        for (int i = byStart.length - 1; i >= 0; i--) minEndFrom[i] = Math.min(minEndFrom[i + 1], byStart[i].end());
+        for (Op read : ops) {
+            if (read.kind() != Kind.READ) continue;
+            if (read.id() < 0) {
+                if (minEndFrom[0] < read.start()) failures.add(queue + ": getCalledTicket found nobody after a call");
+                continue;
+            }
+            Op m = makers.get(read.id());
+            if (m == null) {
+                failures.add(queue + ": getCalledTicket returned " + read.id() + " that nobody called");
+            } else if (m.start() > read.end()) {
+                failures.add(queue + ": getCalledTicket returned " + read.id() + " before it was called");
+            } else if (replaced(byStart, starts, minEndFrom, m, saves.get(m.id()), read.start())) {
+                failures.add(queue + ": getCalledTicket returned " + read.id() + " after it was replaced");
+            }
+        }
+
+        if (!persistence.getTickets(queue, CREATED, 0, 1).isEmpty()) failures.add(queue + ": tickets wait after the drain");
+        if (byStart.length == 0) return;
+        try {
+            long called = persistence.getCalledTicket(queue).getId();
+            Op m = makers.get(called);
+            if (m == null || replaced(byStart, starts, minEndFrom, m, saves.get(called), Long.MAX_VALUE)) {
+                failures.add(queue + ": ticket " + called + " is CALLED but was not the last one called");
+            }
+        } catch (TicketNotFoundException e) {
+            failures.add(queue + ": no CALLED ticket after the drain");
+        }
+        int[] states = new int[3];
+        persistence.forEachTicket(queue, null, 0, ticket -> states[ticket.getState().ordinal()]++);
+        if (states[CALLED.ordinal()] != 1 || states[COMPLETED.ordinal()] != saves.size() - 1) {
+            failures.add(queue + ": expected 1 CALLED and " + (saves.size() - 1) + " COMPLETED but found "
+                    + states[CALLED.ordinal()] + " and " + states[COMPLETED.ordinal()]);
+        }
+    }
+
+    // Whether another call must have taken effect after maker m and ended before time: either it started after m
+    // ended, or it took a higher id after m's ticket was saved, which FIFO only allows once that ticket was called.
+    private static boolean replaced(Op[] byStart, long[] starts, long[] minEndFrom, Op m, Op save, long time) {
+        if (minEndFrom[firstAfter(starts, m.end())] < time) return true;
+        if (save == null) return false;
+        for (int i = firstAfter(starts, save.end()); i < starts.length && starts[i] < time; i++) {
+            if (byStart[i].id() > m.id() && byStart[i].end() < time) return true;
+        }
+        return false;
+    }
+
+    // Index of the first start strictly after time.
+    private static int firstAfter(long[] starts, long time) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Operations per second plus count, p50 and p99 latency of each kind.
+    static String report(Run run) {
+        Map<Kind, List<Long>> latencies = new EnumMap<>(Kind.class);
+        for (Op op : run.history()) latencies.computeIfAbsent(op.kind(), k -> new ArrayList<>()).add(op.end() - op.start());
+        StringBuilder out = new StringBuilder("ops=%d throughput=%.0f ops/s".formatted(
+                run.history().size(), run.history().size() / (run.nanos() / 1e9)));
+        latencies.forEach((kind, nanos) -> {
+            Collections.sort(nanos);
+            out.append(" %s[n=%d p50=%dus p99=%dus]".formatted(kind, nanos.size(),
+                    nanos.get(nanos.size() / 2) / 1_000, nanos.get((int) (nanos.size() * 0.99)) / 1_000));
+        });
+        return out.toString();
+    }
+}